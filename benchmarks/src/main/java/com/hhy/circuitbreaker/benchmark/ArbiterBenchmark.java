@@ -0,0 +1,63 @@
+package com.hhy.circuitbreaker.benchmark;
+
+import com.hhy.circuitbreaker.CircuitBreakerArbiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 描述: 熔断裁决器在 1/8/32 个线程并发记录时的吞吐
+ * </p>
+ *
+ * @Author hhy
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArbiterBenchmark {
+    private CircuitBreakerArbiter arbiter;
+
+    @Setup
+    public void setup() {
+        arbiter = new CircuitBreakerArbiter(5, TimeUnit.SECONDS, CircuitBreakerArbiter.DEFAULT_BUCKET_COUNT, 0.5, 1.0, 10);
+    }
+
+    private boolean recordAndJudge() {
+        // 约 1% 的失败
+        arbiter.record(ThreadLocalRandom.current().nextInt(100) != 0, false);
+        return arbiter.isTripped(false);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean record1Thread() {
+        return recordAndJudge();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean record8Threads() {
+        return recordAndJudge();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean record32Threads() {
+        return recordAndJudge();
+    }
+}
@@ -0,0 +1,25 @@
+package com.hhy.circuitbreaker.benchmark;
+
+import com.hhy.circuitbreaker.HHYCircuitBreaker;
+
+/**
+ * <p>
+ * 描述: 基准测试使用的被代理对象
+ * </p>
+ *
+ * @Author hhy
+ */
+public class BenchmarkService {
+    @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback")
+    public int guarded(int value) {
+        return value + 1;
+    }
+
+    public int plain(int value) {
+        return value + 1;
+    }
+
+    public int fallback() {
+        return -1;
+    }
+}
@@ -0,0 +1,55 @@
+package com.hhy.circuitbreaker.benchmark;
+
+import com.hhy.circuitbreaker.CircuitBreakerMethodDescriptor;
+import com.hhy.circuitbreaker.HHYCircuitBreakerController;
+import com.hhy.circuitbreaker.config.HHYCircuitBreakerProperties;
+import com.hhy.circuitbreaker.proxy.CglibFactory;
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import com.hhy.circuitbreaker.scheduler.HashedWheelTimerScheduler;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 描述: 不启动 Spring 容器，手工组装熔断控制器与代理对象
+ * </p>
+ *
+ * @Author hhy
+ */
+final class BenchmarkSupport {
+    final HashedWheelTimerScheduler scheduler;
+    final ExecutorService callExecutor;
+    final HHYCircuitBreakerController controller;
+    final BenchmarkService target;
+    final BenchmarkService proxy;
+    final CircuitBreakerMethodDescriptor descriptor;
+    final HHYCircuitBreakerMethodInterceptor interceptor;
+
+    BenchmarkSupport() throws NoSuchMethodException {
+        HHYCircuitBreakerProperties properties = new HHYCircuitBreakerProperties();
+        properties.setMaxRetry(3);
+        properties.setRetryInterval(5000);
+        properties.setBackoffMultiplier(2.0);
+        properties.setBackoffMaxInterval(60000);
+        properties.setHalfOpenMaxWait(60000);
+        properties.setHalfOpenPermittedCalls(3);
+        scheduler = new HashedWheelTimerScheduler(Runnable::run, 100, TimeUnit.MILLISECONDS, 512);
+        callExecutor = Executors.newCachedThreadPool();
+        controller = new HHYCircuitBreakerController(properties, scheduler);
+        target = new BenchmarkService();
+        Method guarded = BenchmarkService.class.getMethod("guarded", int.class);
+        descriptor = CircuitBreakerMethodDescriptor.of(target, guarded, controller);
+        proxy = CglibFactory.getProxy(target, Collections.singletonList(descriptor), controller, callExecutor);
+        // 接口代理方式的拦截器，直接调用原始对象，便于单独测量拦截器本身
+        interceptor = new HHYCircuitBreakerMethodInterceptor(descriptor, controller, callExecutor, target);
+    }
+
+    void close() {
+        scheduler.shutdown();
+        callExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,61 @@
+package com.hhy.circuitbreaker.benchmark;
+
+import com.hhy.circuitbreaker.CircuitState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 描述: 熔断打开时的开销：拦截器短路与经由代理的降级路径
+ * 熔断状态在准备阶段直接置为 OPEN，不会调度恢复任务
+ * </p>
+ *
+ * @Author hhy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OpenCircuitBenchmark {
+    private BenchmarkSupport support;
+    private Method guarded;
+    private Object[] args;
+    private int value;
+
+    @Setup
+    public void setup() throws Exception {
+        support = new BenchmarkSupport();
+        guarded = support.descriptor.getMethod();
+        args = new Object[]{1};
+        support.descriptor.getState().compareAndSet(CircuitState.CLOSED, CircuitState.OPEN);
+    }
+
+    @TearDown
+    public void tearDown() {
+        support.close();
+    }
+
+    @Benchmark
+    public Object interceptorShortCircuit() throws Throwable {
+        return support.interceptor.intercept(null, guarded, args, null);
+    }
+
+    @Benchmark
+    public int proxyGuardedOpen() {
+        return support.proxy.guarded(value++);
+    }
+}
@@ -0,0 +1,58 @@
+package com.hhy.circuitbreaker.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 描述: 代理调用开销：直接调用 vs 未注解方法（NoOp 回调） vs 熔断关闭时的注解方法
+ * </p>
+ *
+ * @Author hhy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyOverheadBenchmark {
+    private BenchmarkSupport support;
+    private int value;
+
+    @Setup
+    public void setup() throws Exception {
+        support = new BenchmarkSupport();
+    }
+
+    @TearDown
+    public void tearDown() {
+        support.close();
+    }
+
+    @Benchmark
+    public int direct() {
+        return support.target.guarded(value++);
+    }
+
+    @Benchmark
+    public int proxyPassThrough() {
+        return support.proxy.plain(value++);
+    }
+
+    @Benchmark
+    public int proxyGuardedClosed() {
+        return support.proxy.guarded(value++);
+    }
+}
@@ -0,0 +1,75 @@
+package com.hhy.circuitbreaker;
+
+/**
+ * <p>
+ * 描述: 熔断方法的状态快照，用于查询与展示
+ * </p>
+ *
+ * @Author hhy
+ */
+public final class BreakerStatus {
+    private final String key;
+    private final int methodId;
+    private final CircuitState state;
+    private final long successCount;
+    private final long failCount;
+    private final long slowCount;
+    private final int retriedCount;
+
+    /**
+     * 熔断等待期结束的时间戳，仅在打开状态下有意义
+     */
+    private final long expire;
+
+    public BreakerStatus(MethodWrapper methodWrapper) {
+        final CircuitBreakerArbiter arbiter = methodWrapper.getRequestRate();
+        this.key = methodWrapper.getKey();
+        this.methodId = methodWrapper.getMethodId();
+        this.state = methodWrapper.getState().get();
+        this.successCount = arbiter.getSuccessCount();
+        this.failCount = arbiter.getFailCount();
+        this.slowCount = arbiter.getSlowCount();
+        this.retriedCount = methodWrapper.getRetriedCount();
+        this.expire = methodWrapper.getExpire();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getMethodId() {
+        return methodId;
+    }
+
+    public CircuitState getState() {
+        return state;
+    }
+
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    public long getFailCount() {
+        return failCount;
+    }
+
+    public long getSlowCount() {
+        return slowCount;
+    }
+
+    /**
+     * 窗口内失败率，窗口内没有请求时为 0
+     */
+    public double getFailureRate() {
+        final long total = successCount + failCount;
+        return total == 0 ? 0 : (double) failCount / total;
+    }
+
+    public int getRetriedCount() {
+        return retriedCount;
+    }
+
+    public long getExpire() {
+        return expire;
+    }
+}
@@ -0,0 +1,15 @@
+package com.hhy.circuitbreaker;
+
+/**
+ * <p>
+ * 描述: 舱壁已满，调用被拒绝
+ * </p>
+ *
+ * @Author hhy
+ */
+public class BulkheadFullException extends RuntimeException {
+    public BulkheadFullException(String message) {
+        // 拒绝发生在过载时，不填充堆栈以减少开销
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,20 @@
+package com.hhy.circuitbreaker;
+
+/**
+ * <p>
+ * 描述: 舱壁隔离方式
+ * </p>
+ *
+ * @Author hhy
+ */
+public enum BulkheadType {
+    /**
+     * 信号量：在调用线程上执行，并发已满时立即拒绝
+     */
+    SEMAPHORE,
+
+    /**
+     * 线程池：在方法独占的有界线程池中执行，线程与队列都满时拒绝
+     */
+    THREAD_POOL
+}
@@ -0,0 +1,123 @@
+package com.hhy.circuitbreaker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.CompletionException;
+
+/**
+ * <p>
+ * 描述: 调用结果分类器，在创建代理时按注解配置生成，每个熔断方法一个
+ * 异常先匹配忽略列表，命中则既不算成功也不算失败；再匹配记录列表（为空时所有异常都记为失败），
+ * 未命中记录列表的异常记为成功。正常返回的结果交给结果判定方法，返回 true 时记为失败
+ * </p>
+ *
+ * @Author hhy
+ */
+public final class CallOutcomeClassifier {
+    /**
+     * 调用结果
+     */
+    public enum Outcome {
+        SUCCESS,
+        FAILURE,
+        /**
+         * 不计入统计
+         */
+        IGNORED
+    }
+
+    private final Class<? extends Throwable>[] recordExceptions;
+
+    private final Class<? extends Throwable>[] ignoreExceptions;
+
+    /**
+     * 已绑定原始对象并适配为 (Object)boolean 的结果判定方法，未配置时为 null
+     */
+    private final MethodHandle resultPredicate;
+
+    private CallOutcomeClassifier(Class<? extends Throwable>[] recordExceptions, Class<? extends Throwable>[] ignoreExceptions,
+                                  MethodHandle resultPredicate) {
+        this.recordExceptions = recordExceptions;
+        this.ignoreExceptions = ignoreExceptions;
+        this.resultPredicate = resultPredicate;
+    }
+
+    /**
+     * 按注解配置生成分类器，结果判定方法签名不匹配时启动失败
+     */
+    static CallOutcomeClassifier of(Object target, Method method, HHYCircuitBreaker hhyCircuitBreaker, CallResultType resultType) {
+        return new CallOutcomeClassifier(hhyCircuitBreaker.recordExceptions(), hhyCircuitBreaker.ignoreExceptions(),
+                resolveResultPredicate(target, method, hhyCircuitBreaker.recordResultPredicate(), resultType));
+    }
+
+    private static MethodHandle resolveResultPredicate(Object target, Method method, String predicateName, CallResultType resultType) {
+        if (predicateName.isEmpty()) {
+            return null;
+        }
+        // 同步方法的判定参数必须能接收返回值，异步方法接收的是完成后的元素值，运行时转换
+        final Class<?> resultClass = resultType == CallResultType.SYNC ? method.getReturnType() : Object.class;
+        for (Method candidate : target.getClass().getMethods()) {
+            if (candidate.getName().equals(predicateName)
+                    && !Modifier.isStatic(candidate.getModifiers())
+                    && candidate.getParameterCount() == 1
+                    && candidate.getReturnType() == boolean.class
+                    && (resultType != CallResultType.SYNC || candidate.getParameterTypes()[0].isAssignableFrom(boxed(resultClass)))) {
+                try {
+                    return MethodHandles.publicLookup().unreflect(candidate)
+                            .bindTo(target)
+                            .asType(MethodType.methodType(boolean.class, Object.class));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("无法解析结果判定方法 " + predicateName + "，熔断方法: " + method, e);
+                }
+            }
+        }
+        throw new IllegalStateException("无法解析结果判定方法 " + predicateName
+                + "，判定方法必须是 public 的，接收一个返回值参数并返回 boolean，熔断方法: " + method);
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    /**
+     * 对一次调用结果分类
+     *
+     * @param value 返回值，抛出异常时忽略
+     * @param error 抛出的异常，正常返回时为 null
+     */
+    public Outcome classify(Object value, Throwable error) {
+        if (error == null) {
+            return resultPredicate != null && testResult(value) ? Outcome.FAILURE : Outcome.SUCCESS;
+        }
+        // CompletableFuture 的异常可能被包装
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        for (Class<? extends Throwable> ignored : ignoreExceptions) {
+            if (ignored.isInstance(cause)) {
+                return Outcome.IGNORED;
+            }
+        }
+        if (recordExceptions.length == 0) {
+            return Outcome.FAILURE;
+        }
+        for (Class<? extends Throwable> recorded : recordExceptions) {
+            if (recorded.isInstance(cause)) {
+                return Outcome.FAILURE;
+            }
+        }
+        return Outcome.SUCCESS;
+    }
+
+    /**
+     * 判定方法本身抛出异常时按失败处理
+     */
+    private boolean testResult(Object value) {
+        try {
+            return (boolean) resultPredicate.invokeExact(value);
+        } catch (Throwable e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.hhy.circuitbreaker;
+
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>
+ * 描述: 熔断方法的返回值类型，决定调用结果在何时统计
+ * </p>
+ *
+ * @Author hhy
+ */
+public enum CallResultType {
+    /**
+     * 同步返回，方法返回即完成
+     */
+    SYNC,
+
+    /**
+     * CompletableFuture / CompletionStage，在其完成时统计
+     */
+    COMPLETION_STAGE,
+
+    /**
+     * Reactor Mono，在信号结束时统计
+     */
+    MONO,
+
+    /**
+     * Reactor Flux，在信号结束时统计
+     */
+    FLUX;
+
+    private static final Class<?> MONO_CLASS = loadClass("reactor.core.publisher.Mono");
+    private static final Class<?> FLUX_CLASS = loadClass("reactor.core.publisher.Flux");
+
+    public boolean isAsync() {
+        return this != SYNC;
+    }
+
+    public boolean isReactive() {
+        return this == MONO || this == FLUX;
+    }
+
+    public static CallResultType of(Class<?> returnType) {
+        if (CompletionStage.class.isAssignableFrom(returnType)) {
+            return COMPLETION_STAGE;
+        }
+        if (MONO_CLASS != null && MONO_CLASS.isAssignableFrom(returnType)) {
+            return MONO;
+        }
+        if (FLUX_CLASS != null && FLUX_CLASS.isAssignableFrom(returnType)) {
+            return FLUX;
+        }
+        return SYNC;
+    }
+
+    private static Class<?> loadClass(String className) {
+        ClassLoader classLoader = CallResultType.class.getClassLoader();
+        if (!ClassUtils.isPresent(className, classLoader)) {
+            return null;
+        }
+        return ClassUtils.resolveClassName(className, classLoader);
+    }
+}
@@ -0,0 +1,15 @@
+package com.hhy.circuitbreaker;
+
+/**
+ * <p>
+ * 描述: 调用超时，原方法已被取消
+ * </p>
+ *
+ * @Author hhy
+ */
+public class CallTimeoutException extends RuntimeException {
+    public CallTimeoutException(String message) {
+        // 超时集中发生在下游故障期间，不填充堆栈以减少开销
+        super(message, null, false, false);
+    }
+}
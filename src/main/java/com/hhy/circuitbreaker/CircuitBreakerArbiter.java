@@ -1,66 +1,314 @@
 package com.hhy.circuitbreaker;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
 /**
  * <p>
  * 描述: 熔断裁决器
+ * 基于环形分桶的滑动时间窗口：时间窗口被切分为若干个子桶，每个子桶记录自己所属时间片内的成功数与失败数，
+ * 过期的子桶在被再次使用时由 CAS 换成新的空子桶。记录过程无锁，计数按线程分散到 {@link LongAdder} 的填充单元上，
+ * 并发记录不会争用同一个缓存行；失败率只需汇总固定数量的子桶。
+ * 窗口内调用数未达到最小调用数时不做判定；阈值预先换算为定点整数，判定时只做整数乘法与比较。
  * </p>
  *
  * @Author hhy
  */
 public class CircuitBreakerArbiter {
     /**
-     * 成功数
+     * 默认子桶数量
+     */
+    public static final int DEFAULT_BUCKET_COUNT = 10;
+
+    /**
+     * 快照中每个子桶占用的字节数：开始时间戳(毫秒)、成功数、失败数、慢调用数
+     */
+    public static final int SNAPSHOT_BUCKET_BYTES = 32;
+
+    /**
+     * 从未使用过的子桶的时间片序号，小于任何有效序号（包括从快照恢复的负序号），汇总时自然被排除
+     */
+    private static final long UNUSED_EPOCH = Long.MIN_VALUE;
+
+    /**
+     * 比例阈值的定点精度
      */
-    private int successCount;
+    private static final long RATE_SCALE = 1_000_000L;
 
     /**
-     * 失败数
+     * 子桶数量
      */
-    private int failCount;
+    private final int bucketCount;
 
-    public CircuitBreakerArbiter() {
-        this.successCount = 0;
-        this.failCount = 0;
+    /**
+     * 每个子桶覆盖的时长（纳秒）
+     */
+    private final long bucketNanos;
+
+    /**
+     * 时间基准点，保证计算出的时间片序号非负
+     */
+    private final long originNanos;
+
+    /**
+     * 环形子桶，滚动与清空都只替换引用，不原地修改计数
+     */
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    /**
+     * 失败率阈值（定点）
+     */
+    private final long failureRateThreshold;
+
+    /**
+     * 慢调用比例阈值（定点）
+     */
+    private final long slowCallRateThreshold;
+
+    /**
+     * 窗口内至少有这么多次调用才做判定，小于 0 表示尚未配置，由熔断控制器注册时填入全局默认值
+     */
+    private volatile int minimumNumberOfCalls;
+
+    public CircuitBreakerArbiter(long timeWindowSize, TimeUnit timeunit) {
+        this(timeWindowSize, timeunit, DEFAULT_BUCKET_COUNT);
+    }
+
+    public CircuitBreakerArbiter(long timeWindowSize, TimeUnit timeunit, int bucketCount) {
+        this(timeWindowSize, timeunit, bucketCount, 1.0, 1.0, 1);
     }
 
     /**
-     * 决断是否需要熔断
+     * @param failureRateThreshold 可容忍的最大失败率
+     * @param slowCallRateThreshold 可容忍的最大慢调用比例
+     * @param minimumNumberOfCalls 窗口内判定所需的最小调用数，小于 0 表示使用全局配置
+     */
+    public CircuitBreakerArbiter(long timeWindowSize, TimeUnit timeunit, int bucketCount,
+                                 double failureRateThreshold, double slowCallRateThreshold, int minimumNumberOfCalls) {
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("子桶数量必须大于0: " + bucketCount);
+        }
+        this.bucketCount = bucketCount;
+        this.bucketNanos = Math.max(1L, timeunit.toNanos(timeWindowSize) / bucketCount);
+        this.originNanos = System.nanoTime();
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.set(i, new Bucket(UNUSED_EPOCH));
+        }
+        this.failureRateThreshold = toFixedPoint(failureRateThreshold);
+        this.slowCallRateThreshold = toFixedPoint(slowCallRateThreshold);
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
+    }
+
+    private static long toFixedPoint(double rate) {
+        return Math.round(Math.max(0, Math.min(1, rate)) * RATE_SCALE);
+    }
+
+    /**
+     * 判定是否需要熔断，只汇总一遍子桶
      *
-     * @param failRateLimit 可容忍的最大失败率
-     * @return
+     * @param checkSlowCallRate 是否同时判定慢调用比例
+     * @return 失败率或慢调用比例超过阈值
      */
-    public boolean isFailureRateTolerable(double failRateLimit) {
-        int totalRequests = successCount + failCount;
-        // 真实错误率
-        double actualSuccessRate = (double) failCount / totalRequests;
-        return failRateLimit >= actualSuccessRate;
+    public boolean isTripped(boolean checkSlowCallRate) {
+        long minEpoch = currentEpoch() - bucketCount + 1;
+        long success = 0;
+        long fail = 0;
+        long slow = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            final Bucket bucket = buckets.get(i);
+            if (bucket.epoch >= minEpoch) {
+                success += bucket.success.sum();
+                fail += bucket.fail.sum();
+                slow += bucket.slow.sum();
+            }
+        }
+        final long totalRequests = success + fail;
+        if (totalRequests == 0 || totalRequests < minimumNumberOfCalls) {
+            return false;
+        }
+        // fail / total > threshold  <=>  fail * SCALE > threshold * total
+        return fail * RATE_SCALE > failureRateThreshold * totalRequests
+                || (checkSlowCallRate && slow * RATE_SCALE > slowCallRateThreshold * totalRequests);
     }
 
+    /**
+     * 清空整个窗口：与滚动一样把每个子桶换成同一时间片的空子桶，
+     * 与清空并发的记录要么落在旧子桶上随之丢弃，要么落在新子桶上，不会被清零覆盖一半
+     */
     public void reset() {
-        this.successCount = 0;
-        this.failCount = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            final Bucket bucket = buckets.get(i);
+            // 失败说明子桶刚被滚动成新的空子桶，无需再清
+            buckets.compareAndSet(i, bucket, new Bucket(bucket.epoch));
+        }
+    }
+
+    /**
+     * 记录一次调用结果
+     *
+     * @param success 是否成功
+     * @param slow 是否为慢调用
+     */
+    public void record(boolean success, boolean slow) {
+        final Bucket bucket = currentBucket();
+        if (success) {
+            bucket.success.increment();
+        } else {
+            bucket.fail.increment();
+        }
+        if (slow) {
+            bucket.slow.increment();
+        }
+    }
+
+    /**
+     * 窗口内成功数
+     */
+    public long getSuccessCount() {
+        return sum(bucket -> bucket.success.sum());
+    }
+
+    /**
+     * 窗口内失败数
+     */
+    public long getFailCount() {
+        return sum(bucket -> bucket.fail.sum());
     }
-    public void incrSuccess(){
-        this.successCount++;
+
+    /**
+     * 窗口内慢调用数
+     */
+    public long getSlowCount() {
+        return sum(bucket -> bucket.slow.sum());
     }
 
-    public void incrFail(){
-        this.failCount++;
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
     }
 
-    public int getSuccessCount() {
-        return successCount;
+    public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
     }
 
-    public void setSuccessCount(int successCount) {
-        this.successCount = successCount;
+    public int getBucketCount() {
+        return bucketCount;
     }
 
-    public int getFailCount() {
-        return failCount;
+    /**
+     * 导出窗口快照，子桶的时间片换算为墙上时间，便于在另一个进程中恢复
+     *
+     * @param buffer 从当前位置写入 bucketCount * {@link #SNAPSHOT_BUCKET_BYTES} 字节
+     */
+    public void writeSnapshot(ByteBuffer buffer) {
+        final long nowNanos = System.nanoTime();
+        final long nowMillis = System.currentTimeMillis();
+        final long minEpoch = (nowNanos - originNanos) / bucketNanos - bucketCount + 1;
+        for (int i = 0; i < bucketCount; i++) {
+            final Bucket bucket = buckets.get(i);
+            if (bucket.epoch < minEpoch) {
+                buffer.putLong(0).putLong(0).putLong(0).putLong(0);
+                continue;
+            }
+            final long startNanos = originNanos + bucket.epoch * bucketNanos;
+            buffer.putLong(nowMillis - TimeUnit.NANOSECONDS.toMillis(nowNanos - startNanos))
+                    .putLong(bucket.success.sum())
+                    .putLong(bucket.fail.sum())
+                    .putLong(bucket.slow.sum());
+        }
     }
 
-    public void setFailCount(int failCount) {
-        this.failCount = failCount;
+    /**
+     * 从快照恢复窗口，已滑出窗口的子桶被忽略
+     *
+     * @param buffer 由 {@link #writeSnapshot(ByteBuffer)} 写入的内容
+     */
+    public void readSnapshot(ByteBuffer buffer) {
+        final long nowNanos = System.nanoTime();
+        final long nowMillis = System.currentTimeMillis();
+        final long currentEpoch = (nowNanos - originNanos) / bucketNanos;
+        for (int i = 0; i < bucketCount; i++) {
+            final long startMillis = buffer.getLong();
+            final long success = buffer.getLong();
+            final long fail = buffer.getLong();
+            final long slow = buffer.getLong();
+            if (startMillis == 0) {
+                continue;
+            }
+            final long startNanos = nowNanos - TimeUnit.MILLISECONDS.toNanos(nowMillis - startMillis);
+            // 时间片序号可能为负（早于本进程启动），取模时需要 floorMod
+            final long epoch = Math.min(currentEpoch, Math.floorDiv(startNanos - originNanos, bucketNanos));
+            if (epoch <= currentEpoch - bucketCount) {
+                continue;
+            }
+            final Bucket bucket = bucketOf((int) Math.floorMod(epoch, (long) bucketCount), epoch);
+            if (bucket.epoch != epoch) {
+                continue;
+            }
+            bucket.success.add(success);
+            bucket.fail.add(fail);
+            bucket.slow.add(slow);
+        }
+    }
+
+    private long sum(ToLongFunction<Bucket> counter) {
+        long minEpoch = currentEpoch() - bucketCount + 1;
+        long total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            final Bucket bucket = buckets.get(i);
+            if (bucket.epoch >= minEpoch) {
+                total += counter.applyAsLong(bucket);
+            }
+        }
+        return total;
+    }
+
+    private long currentEpoch() {
+        return (System.nanoTime() - originNanos) / bucketNanos;
+    }
+
+    /**
+     * 定位当前时间片对应的子桶
+     */
+    private Bucket currentBucket() {
+        final long epoch = currentEpoch();
+        return bucketOf((int) (epoch % bucketCount), epoch);
+    }
+
+    /**
+     * 取给定时间片的子桶，子桶过期时用 CAS 换成新的空子桶，不等待其他线程：
+     * CAS 失败说明别的线程已经滚动过，重新读取即可。仍持有旧子桶引用的记录属于已滑出窗口的时间片，随旧子桶一起丢弃
+     *
+     * @return 子桶；该位置已被更新的时间片占用时返回更新的子桶
+     */
+    private Bucket bucketOf(int index, long epoch) {
+        while (true) {
+            final Bucket bucket = buckets.get(index);
+            // 只允许向前滚动，避免读到旧时间的线程把新子桶换掉
+            if (bucket.epoch >= epoch) {
+                return bucket;
+            }
+            final Bucket rolled = new Bucket(epoch);
+            if (buckets.compareAndSet(index, bucket, rolled)) {
+                return rolled;
+            }
+        }
+    }
+
+    /**
+     * 一个时间片内的计数，慢调用同时计入成功数或失败数
+     */
+    private static final class Bucket {
+        private final long epoch;
+        private final LongAdder success = new LongAdder();
+        private final LongAdder fail = new LongAdder();
+        private final LongAdder slow = new LongAdder();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
     }
 }
@@ -0,0 +1,71 @@
+package com.hhy.circuitbreaker;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * 描述: 单个方法的舱壁，限制同时执行的调用数
+ * </p>
+ *
+ * @Author hhy
+ */
+public final class CircuitBreakerBulkhead {
+    private final BulkheadType type;
+
+    /**
+     * 最大并发调用数
+     */
+    private final int maxConcurrentCalls;
+
+    /**
+     * 信号量模式下正在执行的调用数
+     */
+    private final AtomicInteger concurrentCalls = new AtomicInteger();
+
+    /**
+     * 线程池模式下方法独占的线程池，信号量模式为 null
+     */
+    private final ExecutorService executor;
+
+    public CircuitBreakerBulkhead(BulkheadType type, int maxConcurrentCalls, ExecutorService executor) {
+        this.type = type;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.executor = executor;
+    }
+
+    /**
+     * 非阻塞地获取一个执行许可
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            final int current = concurrentCalls.get();
+            if (current >= maxConcurrentCalls) {
+                return false;
+            }
+            if (concurrentCalls.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        concurrentCalls.decrementAndGet();
+    }
+
+    public BulkheadType getType() {
+        return type;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getConcurrentCalls() {
+        return concurrentCalls.get();
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+}
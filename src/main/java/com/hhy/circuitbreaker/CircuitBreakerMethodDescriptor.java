@@ -0,0 +1,478 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.backoff.ExponentialBackoff;
+import com.hhy.circuitbreaker.cache.IResultCache;
+import com.hhy.circuitbreaker.cache.ResultCaches;
+import com.hhy.circuitbreaker.limit.AimdConcurrencyLimiter;
+import com.hhy.circuitbreaker.limit.IConcurrencyLimiter;
+import com.hhy.circuitbreaker.limit.VegasConcurrencyLimiter;
+import com.hhy.circuitbreaker.metrics.IMethodMetrics;
+import com.hhy.circuitbreaker.partition.BreakerPartitions;
+import com.hhy.circuitbreaker.partition.IBreakerPartitions;
+import com.hhy.circuitbreaker.partition.IPartitionKeyExtractor;
+import com.hhy.circuitbreaker.partition.SpelPartitionKeyExtractor;
+import com.hhy.circuitbreaker.proxy.CallExecutors;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 描述: 熔断方法描述符，在创建代理时一次性解析注解配置，调用期间只读
+ * </p>
+ *
+ * @Author hhy
+ */
+public final class CircuitBreakerMethodDescriptor {
+    /**
+     * 降级方法签名：不匹配、无参、与熔断方法参数相同、参数相同并追加异常
+     */
+    private static final int SIGNATURE_MISMATCH = -1;
+    private static final int SIGNATURE_NO_ARGS = 0;
+    private static final int SIGNATURE_ARGS = 1;
+    private static final int SIGNATURE_ARGS_AND_CAUSE = 2;
+
+    private static final MethodHandle CAUSE_OR_NULL;
+
+    /**
+     * 分区键为 null 的调用共用的分区
+     */
+    private static final Object NULL_PARTITION_KEY = new Object();
+
+    static {
+        try {
+            CAUSE_OR_NULL = MethodHandles.lookup().findStatic(CircuitBreakerMethodDescriptor.class, "causeOrNull",
+                    MethodType.methodType(Throwable.class, Class.class, Throwable.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 被熔断的方法
+     */
+    private final Method method;
+
+    /**
+     * 熔断阈值
+     */
+    private final double circuitBreakerThreshold;
+
+    /**
+     * 返回值类型
+     */
+    private final CallResultType resultType;
+
+    /**
+     * 时间窗口长度（纳秒）
+     */
+    private final long windowNanos;
+
+    /**
+     * 慢调用耗时阈值（纳秒），0 表示不统计慢调用
+     */
+    private final long slowCallDurationNanos;
+
+    /**
+     * 慢调用比例阈值
+     */
+    private final double slowCallRateThreshold;
+
+    /**
+     * 调用超时时间（纳秒），0 表示不限时
+     */
+    private final long timeoutNanos;
+
+    /**
+     * 舱壁，未配置时为 null
+     */
+    private final CircuitBreakerBulkhead bulkhead;
+
+    /**
+     * 自适应并发限制器，未配置时为 null
+     */
+    private final IConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * 调用结果分类器
+     */
+    private final CallOutcomeClassifier classifier;
+
+    /**
+     * 结果缓存，未开启时为 null
+     */
+    private final IResultCache resultCache;
+
+    /**
+     * 已绑定原始对象并适配为 (Object[], Throwable)Object 的降级方法，未配置时为 null
+     */
+    private final MethodHandle fallback;
+
+    /**
+     * 短路时传给降级方法的异常
+     */
+    private final CircuitBreakerOpenException openException;
+
+    /**
+     * 熔断裁决器
+     */
+    private final CircuitBreakerArbiter arbiter;
+
+    /**
+     * 熔断状态机
+     */
+    private final CircuitBreakerState state;
+
+    /**
+     * 交给熔断控制器调度的包装对象，每个方法只有一个
+     */
+    private final MethodWrapper methodWrapper;
+
+    /**
+     * 分区键提取器，未开启分区熔断时为 null
+     */
+    private final IPartitionKeyExtractor partitionKeyExtractor;
+
+    /**
+     * 各分区的熔断器，未开启分区熔断时为 null
+     */
+    private final IBreakerPartitions partitions;
+
+    private CircuitBreakerMethodDescriptor(Object target, String beanName, Method method, HHYCircuitBreaker hhyCircuitBreaker, MethodHandle fallback,
+                                           IHHYCircuitBreakerController controller, IPartitionKeyExtractor partitionKeyExtractor) {
+        this.method = method;
+        this.resultType = CallResultType.of(method.getReturnType());
+        this.circuitBreakerThreshold = hhyCircuitBreaker.circuitBreakerThreshold();
+        this.windowNanos = hhyCircuitBreaker.timeunit().toNanos(hhyCircuitBreaker.timeWindowSize());
+        this.slowCallDurationNanos = hhyCircuitBreaker.slowCallDurationUnit().toNanos(hhyCircuitBreaker.slowCallDurationThreshold());
+        this.slowCallRateThreshold = hhyCircuitBreaker.slowCallRateThreshold();
+        this.timeoutNanos = hhyCircuitBreaker.timeoutUnit().toNanos(Math.max(0, hhyCircuitBreaker.timeout()));
+        this.bulkhead = createBulkhead(method, hhyCircuitBreaker);
+        this.concurrencyLimiter = createConcurrencyLimiter(method, hhyCircuitBreaker, resultType, slowCallDurationNanos);
+        this.classifier = CallOutcomeClassifier.of(target, method, hhyCircuitBreaker, resultType);
+        this.resultCache = resultType == CallResultType.SYNC || resultType == CallResultType.COMPLETION_STAGE
+                ? ResultCaches.create(hhyCircuitBreaker) : null;
+        this.fallback = fallback;
+        this.openException = new CircuitBreakerOpenException("方法已熔断: " + method.getName());
+        this.arbiter = new CircuitBreakerArbiter(windowNanos, TimeUnit.NANOSECONDS, CircuitBreakerArbiter.DEFAULT_BUCKET_COUNT,
+                circuitBreakerThreshold, slowCallRateThreshold, hhyCircuitBreaker.minimumNumberOfCalls());
+        this.state = new CircuitBreakerState();
+        this.methodWrapper = new MethodWrapper(target, method, arbiter, state);
+        methodWrapper.setBeanName(beanName);
+        if (hhyCircuitBreaker.backoffInitialInterval() > 0) {
+            final TimeUnit backoffUnit = hhyCircuitBreaker.backoffUnit();
+            methodWrapper.setBackoff(new ExponentialBackoff(backoffUnit.toMillis(hhyCircuitBreaker.backoffInitialInterval()),
+                    hhyCircuitBreaker.backoffMultiplier(), backoffUnit.toMillis(hhyCircuitBreaker.backoffMaxInterval()),
+                    hhyCircuitBreaker.backoffJitter()));
+        }
+        controller.register(methodWrapper);
+        if (partitionKeyExtractor == null && !hhyCircuitBreaker.partitionKey().isEmpty()) {
+            partitionKeyExtractor = new SpelPartitionKeyExtractor(hhyCircuitBreaker.partitionKey());
+        }
+        this.partitionKeyExtractor = partitionKeyExtractor;
+        this.partitions = partitionKeyExtractor == null ? null : BreakerPartitions.create(Math.max(1, hhyCircuitBreaker.maxPartitions()),
+                hhyCircuitBreaker.partitionIdleTimeoutUnit().toNanos(hhyCircuitBreaker.partitionIdleTimeout()), this::newPartition);
+    }
+
+    /**
+     * 创建分区熔断器：沿用方法级的阈值、最小调用数与退避参数，不向熔断控制器注册。
+     * 退避策略只保存参数，等待时长按分区自己的重试次数计算；分区的状态迁移不上报方法级指标，
+     * 否则一个租户熔断就会让整个方法的状态指标跟着跳动
+     */
+    private MethodWrapper newPartition(Object partitionKey) {
+        final CircuitBreakerArbiter partitionArbiter = new CircuitBreakerArbiter(windowNanos, TimeUnit.NANOSECONDS,
+                CircuitBreakerArbiter.DEFAULT_BUCKET_COUNT, circuitBreakerThreshold, slowCallRateThreshold, arbiter.getMinimumNumberOfCalls());
+        final MethodWrapper partition = new MethodWrapper(methodWrapper.getObject(), method, partitionArbiter, new CircuitBreakerState());
+        partition.setKey(methodWrapper.getKey() + '[' + (partitionKey == NULL_PARTITION_KEY ? null : partitionKey) + ']');
+        partition.setBackoff(methodWrapper.getBackoff());
+        return partition;
+    }
+
+    /**
+     * 解析方法上的熔断注解
+     *
+     * @param target 原始对象，降级方法绑定在它上面
+     * @param method 被 {@link HHYCircuitBreaker} 修饰的方法
+     * @param controller 熔断控制器，描述符创建时向它注册
+     */
+    public static CircuitBreakerMethodDescriptor of(Object target, Method method, IHHYCircuitBreakerController controller) {
+        return of(target, method, method.getAnnotation(HHYCircuitBreaker.class), controller);
+    }
+
+    /**
+     * @param hhyCircuitBreaker 方法上的熔断注解，可能继承自父类或接口中的同名方法
+     */
+    public static CircuitBreakerMethodDescriptor of(Object target, Method method, HHYCircuitBreaker hhyCircuitBreaker, IHHYCircuitBreakerController controller) {
+        return of(target, method, hhyCircuitBreaker, controller, null);
+    }
+
+    /**
+     * @param partitionKeyExtractor 分区键提取器，为 null 时按注解上的 partitionKey 表达式分区，表达式也为空则不分区
+     */
+    public static CircuitBreakerMethodDescriptor of(Object target, Method method, HHYCircuitBreaker hhyCircuitBreaker, IHHYCircuitBreakerController controller,
+                                                    IPartitionKeyExtractor partitionKeyExtractor) {
+        return of(target, null, method, hhyCircuitBreaker, controller, partitionKeyExtractor);
+    }
+
+    /**
+     * @param beanName 原始对象的 Bean 名称，同一个类的多个 Bean 据此区分指标；不是 Bean 时为 null
+     */
+    public static CircuitBreakerMethodDescriptor of(Object target, String beanName, Method method, HHYCircuitBreaker hhyCircuitBreaker,
+                                                    IHHYCircuitBreakerController controller, IPartitionKeyExtractor partitionKeyExtractor) {
+        if (hhyCircuitBreaker == null) {
+            throw new IllegalArgumentException("方法未被 @HHYCircuitBreaker 修饰: " + method);
+        }
+        return new CircuitBreakerMethodDescriptor(target, beanName, method, hhyCircuitBreaker,
+                resolveFallback(target, method, hhyCircuitBreaker.callback(), CallResultType.of(method.getReturnType())), controller,
+                partitionKeyExtractor);
+    }
+
+    private static CircuitBreakerBulkhead createBulkhead(Method method, HHYCircuitBreaker hhyCircuitBreaker) {
+        final int maxConcurrentCalls = hhyCircuitBreaker.maxConcurrentCalls();
+        if (maxConcurrentCalls <= 0) {
+            return null;
+        }
+        ExecutorService executor = null;
+        if (hhyCircuitBreaker.bulkheadType() == BulkheadType.THREAD_POOL) {
+            executor = CallExecutors.newBoundedExecutor(maxConcurrentCalls, hhyCircuitBreaker.bulkheadQueueCapacity(),
+                    "circuit-bulkhead-" + method.getName() + "-");
+        }
+        return new CircuitBreakerBulkhead(hhyCircuitBreaker.bulkheadType(), maxConcurrentCalls, executor);
+    }
+
+    /**
+     * 并发在途数只能在调用完成时归还，Mono/Flux 取消订阅时没有完成回调，因此不支持
+     */
+    private static IConcurrencyLimiter createConcurrencyLimiter(Method method, HHYCircuitBreaker hhyCircuitBreaker, CallResultType resultType,
+                                                                long slowCallDurationNanos) {
+        final ConcurrencyLimitType type = hhyCircuitBreaker.concurrencyLimit();
+        if (type == ConcurrencyLimitType.NONE) {
+            return null;
+        }
+        if (resultType != CallResultType.SYNC && resultType != CallResultType.COMPLETION_STAGE) {
+            throw new IllegalStateException("自适应并发限制仅支持同步返回与 CompletableFuture，熔断方法: " + method);
+        }
+        if (type == ConcurrencyLimitType.AIMD) {
+            return new AimdConcurrencyLimiter(hhyCircuitBreaker.concurrencyLimitInitial(), hhyCircuitBreaker.concurrencyLimitMin(),
+                    hhyCircuitBreaker.concurrencyLimitMax(), slowCallDurationNanos);
+        }
+        return new VegasConcurrencyLimiter(hhyCircuitBreaker.concurrencyLimitInitial(), hhyCircuitBreaker.concurrencyLimitMin(),
+                hhyCircuitBreaker.concurrencyLimitMax());
+    }
+
+    /**
+     * 解析降级方法并适配为统一的 (Object[], Throwable)Object 句柄，调用时无需反射与查找
+     */
+    private static MethodHandle resolveFallback(Object target, Method method, String callbackName, CallResultType resultType) {
+        if (callbackName.isEmpty()) {
+            return null;
+        }
+        // 同名方法中选择匹配程度最高的一个
+        Method callback = null;
+        int bestSignature = SIGNATURE_MISMATCH;
+        for (Method candidate : target.getClass().getMethods()) {
+            if (!candidate.getName().equals(callbackName)) {
+                continue;
+            }
+            int signature = matchSignature(method, candidate);
+            if (signature > bestSignature) {
+                bestSignature = signature;
+                callback = candidate;
+            }
+        }
+        if (callback == null) {
+            throw new IllegalStateException("无法解析降级方法 " + callbackName + "，降级方法必须是 public 的，"
+                    + "参数为空、与熔断方法相同、或与熔断方法相同并追加一个 Throwable 参数，熔断方法: " + method);
+        }
+        if (!isReturnTypeCompatible(method, callback, resultType)) {
+            throw new IllegalStateException("降级方法 " + callback + " 的返回值类型与熔断方法不兼容，熔断方法: " + method);
+        }
+        try {
+            return adaptFallback(MethodHandles.publicLookup().unreflect(callback).bindTo(target), method.getParameterCount(), bestSignature);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法解析降级方法 " + callbackName + "，熔断方法: " + method, e);
+        }
+    }
+
+    private static int matchSignature(Method method, Method callback) {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        final Class<?>[] callbackTypes = callback.getParameterTypes();
+        if (callbackTypes.length == 0) {
+            return SIGNATURE_NO_ARGS;
+        }
+        final boolean withCause = callbackTypes.length == parameterTypes.length + 1
+                && Throwable.class.isAssignableFrom(callbackTypes[parameterTypes.length]);
+        if (callbackTypes.length != parameterTypes.length && !withCause) {
+            return SIGNATURE_MISMATCH;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (!callbackTypes[i].isAssignableFrom(parameterTypes[i])) {
+                return SIGNATURE_MISMATCH;
+            }
+        }
+        return withCause ? SIGNATURE_ARGS_AND_CAUSE : SIGNATURE_ARGS;
+    }
+
+    /**
+     * 同步方法要求降级结果可以赋值给返回值；CompletableFuture 方法的降级结果可以是同类型的 future 或元素值；
+     * Mono/Flux 由运行时适配，不做校验
+     */
+    private static boolean isReturnTypeCompatible(Method method, Method callback, CallResultType resultType) {
+        final Class<?> returnType = ClassUtils.resolvePrimitiveIfNecessary(method.getReturnType());
+        final Class<?> callbackReturnType = ClassUtils.resolvePrimitiveIfNecessary(callback.getReturnType());
+        switch (resultType) {
+            case SYNC:
+                return returnType == Void.class || returnType.isAssignableFrom(callbackReturnType);
+            case COMPLETION_STAGE:
+                return returnType.isAssignableFrom(callbackReturnType) || !CompletionStage.class.isAssignableFrom(callbackReturnType);
+            default:
+                return true;
+        }
+    }
+
+    private static MethodHandle adaptFallback(MethodHandle handle, int parameterCount, int signature) {
+        final MethodType fallbackType = MethodType.methodType(Object.class, Object[].class, Throwable.class);
+        if (signature == SIGNATURE_NO_ARGS) {
+            return MethodHandles.dropArguments(handle.asType(MethodType.methodType(Object.class)), 0, Object[].class, Throwable.class);
+        }
+        if (signature == SIGNATURE_ARGS) {
+            return MethodHandles.dropArguments(handle.asSpreader(Object[].class, parameterCount).asType(MethodType.methodType(Object.class, Object[].class)),
+                    1, Throwable.class);
+        }
+        // 异常参数类型不是 Throwable 时，类型不符的异常传 null
+        final Class<?> causeType = handle.type().parameterType(parameterCount);
+        final MethodHandle causeFilter = MethodHandles.insertArguments(CAUSE_OR_NULL, 0, causeType)
+                .asType(MethodType.methodType(causeType, Throwable.class));
+        MethodHandle h = MethodHandles.filterArguments(handle, parameterCount, causeFilter);
+        // (P1..Pn, Throwable) -> (Throwable, P1..Pn)，Java 8 只能展开末尾的参数
+        final int[] reorder = new int[parameterCount + 1];
+        for (int i = 0; i < parameterCount; i++) {
+            reorder[i] = i + 1;
+        }
+        reorder[parameterCount] = 0;
+        final MethodType reordered = h.type().dropParameterTypes(parameterCount, parameterCount + 1).insertParameterTypes(0, Throwable.class);
+        h = MethodHandles.permuteArguments(h, reordered, reorder).asSpreader(Object[].class, parameterCount);
+        // (Throwable, Object[]) -> (Object[], Throwable)
+        h = MethodHandles.permuteArguments(h, h.type().dropParameterTypes(0, 1).appendParameterTypes(Throwable.class), 1, 0);
+        return h.asType(fallbackType);
+    }
+
+    private static Throwable causeOrNull(Class<?> causeType, Throwable cause) {
+        return causeType.isInstance(cause) ? cause : null;
+    }
+
+    public boolean hasFallback() {
+        return fallback != null;
+    }
+
+    /**
+     * 调用降级方法
+     *
+     * @param args 原始调用参数
+     * @param cause 触发降级的异常，短路时为 {@link CircuitBreakerOpenException}
+     */
+    public Object invokeFallback(Object[] args, Throwable cause) throws Throwable {
+        if (fallback == null) {
+            throw new IllegalStateException("方法已熔断且未配置降级方法: " + method);
+        }
+        return (Object) fallback.invokeExact(args, cause);
+    }
+
+    /**
+     * 短路时传给降级方法的异常
+     */
+    public CircuitBreakerOpenException getOpenException() {
+        return openException;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public CallResultType getResultType() {
+        return resultType;
+    }
+
+    public double getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    public long getWindowNanos() {
+        return windowNanos;
+    }
+
+    /**
+     * 按耗时判断是否为慢调用
+     *
+     * @param durationNanos 调用耗时（纳秒）
+     */
+    public boolean isSlowCall(long durationNanos) {
+        return slowCallDurationNanos > 0 && durationNanos >= slowCallDurationNanos;
+    }
+
+    public long getSlowCallDurationNanos() {
+        return slowCallDurationNanos;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+
+    public CircuitBreakerBulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public IConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    public CallOutcomeClassifier getClassifier() {
+        return classifier;
+    }
+
+    public IResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public CircuitBreakerArbiter getArbiter() {
+        return arbiter;
+    }
+
+    public CircuitBreakerState getState() {
+        return state;
+    }
+
+    public IMethodMetrics getMetrics() {
+        return methodWrapper.getMetrics();
+    }
+
+    public MethodWrapper getMethodWrapper() {
+        return methodWrapper;
+    }
+
+    public boolean isPartitioned() {
+        return partitions != null;
+    }
+
+    /**
+     * 按调用参数定位分区熔断器，只在开启分区熔断时调用
+     */
+    public MethodWrapper getPartition(Object[] args) {
+        final Object partitionKey = partitionKeyExtractor.extract(method, args);
+        return partitions.get(partitionKey == null ? NULL_PARTITION_KEY : partitionKey);
+    }
+
+    public IBreakerPartitions getPartitions() {
+        return partitions;
+    }
+}
@@ -0,0 +1,16 @@
+package com.hhy.circuitbreaker;
+
+/**
+ * <p>
+ * 描述: 熔断已打开，调用未被放行
+ * 作为短路时传给降级方法的异常，每个熔断方法共用一个实例
+ * </p>
+ *
+ * @Author hhy
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+    public CircuitBreakerOpenException(String message) {
+        // 短路发生在故障期间的每一次调用上，不填充堆栈以减少开销
+        super(message, null, false, false);
+    }
+}
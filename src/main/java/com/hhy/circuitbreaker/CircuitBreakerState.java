@@ -0,0 +1,178 @@
+package com.hhy.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * 描述: 单个方法的熔断状态机，所有状态迁移均通过 CAS 完成
+ * CLOSED --失败率超限--> OPEN --等待期结束--> HALF_OPEN --试探全部成功--> CLOSED
+ *                                                   \--任一试探失败--> OPEN
+ * FORCED_OPEN 与 DISABLED 只能通过手动控制进入和离开
+ * </p>
+ *
+ * @Author hhy
+ */
+public final class CircuitBreakerState {
+    private static final CircuitState[] STATES = CircuitState.values();
+    private static final int CLOSED = CircuitState.CLOSED.ordinal();
+    private static final AtomicIntegerFieldUpdater<CircuitBreakerState> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(CircuitBreakerState.class, "state");
+
+    /**
+     * 当前状态的序号，热点路径上只需一次 volatile 读
+     */
+    private volatile int state = CLOSED;
+
+    /**
+     * 试探许可不足时 {@link #tryAcquireTrialPermit()} 的返回值
+     */
+    public static final int NO_PERMIT = 0;
+
+    /**
+     * 高 32 位为半开轮次，低 32 位为本轮剩余的试探许可；轮次与许可一起 CAS，上一轮的归还不会加到下一轮
+     */
+    private final AtomicLong trialPermits = new AtomicLong();
+
+    /**
+     * 高 32 位为半开轮次，低 32 位为本轮已成功的试探次数
+     */
+    private final AtomicLong trialSuccesses = new AtomicLong();
+
+    /**
+     * 本轮半开状态需要的成功次数
+     */
+    private volatile int requiredTrialSuccesses;
+
+    public CircuitState get() {
+        return STATES[state];
+    }
+
+    /**
+     * 熔断是否关闭，请求正常放行
+     */
+    public boolean isClosed() {
+        return state == CLOSED;
+    }
+
+    public boolean compareAndSet(CircuitState expect, CircuitState update) {
+        return STATE_UPDATER.compareAndSet(this, expect.ordinal(), update.ordinal());
+    }
+
+    /**
+     * 无条件切换状态，返回原状态
+     */
+    public CircuitState getAndSet(CircuitState update) {
+        return STATES[STATE_UPDATER.getAndSet(this, update.ordinal())];
+    }
+
+    /**
+     * OPEN -> HALF_OPEN，开始新的一轮并发放试探许可
+     *
+     * @param permittedCalls 允许通过的试探请求数，全部成功后关闭熔断
+     */
+    public boolean transitionToHalfOpen(int permittedCalls) {
+        // 先读轮次再检查状态，并发的迁移只有一个能 CAS 成功开启新一轮，不会重置已发放的许可
+        final long current = trialPermits.get();
+        if (state != CircuitState.OPEN.ordinal()) {
+            return false;
+        }
+        final int permits = Math.max(1, permittedCalls);
+        final int round = nextRound(round(current));
+        if (!trialPermits.compareAndSet(current, pack(round, permits))) {
+            return false;
+        }
+        // 请求线程看到 HALF_OPEN 之前新一轮的计数已就绪
+        requiredTrialSuccesses = permits;
+        trialSuccesses.set(pack(round, 0));
+        return compareAndSet(CircuitState.OPEN, CircuitState.HALF_OPEN);
+    }
+
+    /**
+     * 半开状态下尝试获取一个试探许可，许可数不会减到负数
+     *
+     * @return 许可所属的半开轮次，归还许可与记录成功时需带上；没有许可时返回 {@link #NO_PERMIT}
+     */
+    public int tryAcquireTrialPermit() {
+        while (true) {
+            final long current = trialPermits.get();
+            if (count(current) <= 0) {
+                return NO_PERMIT;
+            }
+            if (trialPermits.compareAndSet(current, current - 1)) {
+                return round(current);
+            }
+        }
+    }
+
+    /**
+     * 归还试探许可，试探请求的结果不计入统计时调用；已进入下一轮时忽略
+     *
+     * @param round 获取许可时的半开轮次
+     */
+    public void releaseTrialPermit(int round) {
+        while (true) {
+            final long current = trialPermits.get();
+            if (round(current) != round || trialPermits.compareAndSet(current, current + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 熔断器是否仍处于给定轮次的半开状态，过期的试探结果不应再影响状态
+     */
+    public boolean isHalfOpenRound(int round) {
+        return state == CircuitState.HALF_OPEN.ordinal() && round(trialPermits.get()) == round;
+    }
+
+    public int getHalfOpenRound() {
+        return round(trialPermits.get());
+    }
+
+    /**
+     * 本轮剩余的试探许可
+     */
+    public int getTrialPermits() {
+        return count(trialPermits.get());
+    }
+
+    /**
+     * 记录一次试探成功，成功次数达标时 HALF_OPEN -> CLOSED；已进入下一轮时忽略
+     *
+     * @param round 获取许可时的半开轮次
+     * @return 是否由本次调用关闭了熔断
+     */
+    public boolean onTrialSuccess(int round) {
+        while (true) {
+            final long current = trialSuccesses.get();
+            if (round(current) != round) {
+                return false;
+            }
+            if (trialSuccesses.compareAndSet(current, current + 1)) {
+                return count(current) + 1 >= requiredTrialSuccesses
+                        && compareAndSet(CircuitState.HALF_OPEN, CircuitState.CLOSED);
+            }
+        }
+    }
+
+    private static long pack(int round, int count) {
+        return ((long) round << 32) | (count & 0xFFFFFFFFL);
+    }
+
+    private static int round(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int count(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * 轮次从 1 开始，溢出后跳过 {@link #NO_PERMIT}
+     */
+    private static int nextRound(int round) {
+        final int next = round + 1;
+        return next == NO_PERMIT ? 1 : next;
+    }
+}
@@ -0,0 +1,42 @@
+package com.hhy.circuitbreaker;
+
+/**
+ * <p>
+ * 描述: 熔断器状态
+ * </p>
+ *
+ * @Author hhy
+ */
+public enum CircuitState {
+    /**
+     * 关闭：请求正常放行并统计失败率
+     */
+    CLOSED,
+
+    /**
+     * 打开：请求全部走降级方法
+     */
+    OPEN,
+
+    /**
+     * 半开：放行有限个真实请求作为试探
+     */
+    HALF_OPEN,
+
+    /**
+     * 手动打开：请求全部走降级方法，不会自动恢复
+     */
+    FORCED_OPEN,
+
+    /**
+     * 停用：请求直接放行，不统计也不熔断
+     */
+    DISABLED;
+
+    /**
+     * 该状态下是否拒绝请求（走降级方法）
+     */
+    public boolean isOpen() {
+        return this == OPEN || this == HALF_OPEN || this == FORCED_OPEN;
+    }
+}
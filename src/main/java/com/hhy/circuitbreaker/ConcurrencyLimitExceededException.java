@@ -0,0 +1,15 @@
+package com.hhy.circuitbreaker;
+
+/**
+ * <p>
+ * 描述: 并发超出自适应上限，调用被舍弃
+ * </p>
+ *
+ * @Author hhy
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    public ConcurrencyLimitExceededException(String message) {
+        // 舍弃发生在过载时，不填充堆栈以减少开销
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,25 @@
+package com.hhy.circuitbreaker;
+
+/**
+ * <p>
+ * 描述: 自适应并发限制算法
+ * </p>
+ *
+ * @Author hhy
+ */
+public enum ConcurrencyLimitType {
+    /**
+     * 不限制
+     */
+    NONE,
+
+    /**
+     * 加性增、乘性减：调用成功且并发接近上限时上限加一，失败或慢调用时上限按比例缩小
+     */
+    AIMD,
+
+    /**
+     * 按延迟估算排队：以无负载延迟为基准，估算下游排队长度，排队少时增大上限，排队多或失败时减小上限
+     */
+    VEGAS
+}
@@ -23,10 +23,35 @@ public @interface HHYCircuitBreaker {
     double circuitBreakerThreshold();
 
     /**
-     * 降级方法
+     * 降级方法名，降级方法必须是 public 的，支持以下签名（按优先级）：
+     * 1. 与熔断方法参数相同，最后再加一个 Throwable 类型的参数，接收触发降级的异常
+     * 2. 与熔断方法参数相同
+     * 3. 无参
+     * 启动时校验签名与返回值类型，不匹配直接失败
      */
     String callback() default "";
 
+    /**
+     * 最小调用数：窗口内调用数达到该值才判定是否熔断，小于 0 时使用全局配置 hhy.circuit.minimum-number-of-calls
+     */
+    int minimumNumberOfCalls() default -1;
+
+    /**
+     * 记为失败的异常类型（含子类），为空时所有异常都记为失败，不在列表中的异常记为成功
+     */
+    Class<? extends Throwable>[] recordExceptions() default {};
+
+    /**
+     * 忽略的异常类型（含子类），既不算成功也不算失败，直接抛给调用方；优先于 recordExceptions
+     */
+    Class<? extends Throwable>[] ignoreExceptions() default {};
+
+    /**
+     * 结果判定方法名：public，接收一个返回值参数并返回 boolean，返回 true 时该结果记为失败，
+     * 结果仍照常返回给调用方。Flux 不做判定
+     */
+    String recordResultPredicate() default "";
+
     /**
      * 时间窗口大小
      */
@@ -36,4 +61,152 @@ public @interface HHYCircuitBreaker {
      * 时间窗口单位
      */
     TimeUnit timeunit() default TimeUnit.SECONDS;
+
+    /**
+     * 慢调用耗时阈值：
+     * 耗时达到这个值的调用记为慢调用，0 表示不统计慢调用
+     */
+    long slowCallDurationThreshold() default 0;
+
+    /**
+     * 慢调用耗时阈值单位
+     */
+    TimeUnit slowCallDurationUnit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * 慢调用比例阈值：
+     * 即慢调用比例超过这个值就熔断服务
+     */
+    double slowCallRateThreshold() default 1.0;
+
+    /**
+     * 调用超时时间：
+     * 大于 0 时原方法在独立线程中执行，超时后取消调用、记为失败并返回降级结果
+     */
+    long timeout() default 0;
+
+    /**
+     * 调用超时时间单位
+     */
+    TimeUnit timeoutUnit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * 舱壁最大并发调用数：
+     * 大于 0 时超出并发的调用被拒绝，记为失败并返回降级结果
+     */
+    int maxConcurrentCalls() default 0;
+
+    /**
+     * 舱壁隔离方式
+     */
+    BulkheadType bulkheadType() default BulkheadType.SEMAPHORE;
+
+    /**
+     * 线程池舱壁的队列容量，为 0 时不排队，线程全忙即拒绝
+     */
+    int bulkheadQueueCapacity() default 0;
+
+    /**
+     * 自适应并发限制算法：
+     * 开启后按观测到的延迟与失败动态调整该方法的并发上限，只舍弃超出上限的调用（走降级），其余调用照常执行，
+     * 与失败率熔断同时生效；被舍弃的调用不计入失败率。AIMD 以 slowCallDurationThreshold 作为过载判定。
+     * 仅对同步返回与 CompletableFuture 生效
+     */
+    ConcurrencyLimitType concurrencyLimit() default ConcurrencyLimitType.NONE;
+
+    /**
+     * 初始并发上限
+     */
+    int concurrencyLimitInitial() default 20;
+
+    /**
+     * 并发上限的下界
+     */
+    int concurrencyLimitMin() default 1;
+
+    /**
+     * 并发上限的上界
+     */
+    int concurrencyLimitMax() default 200;
+
+    /**
+     * 首次熔断的等待时长：
+     * 大于 0 时该方法使用自己的指数退避，否则使用全局退避策略
+     */
+    long backoffInitialInterval() default 0;
+
+    /**
+     * 每次试探失败后等待时长的倍数
+     */
+    double backoffMultiplier() default 2.0;
+
+    /**
+     * 等待时长上限，小于初始值时取初始值
+     */
+    long backoffMaxInterval() default 300000;
+
+    /**
+     * 等待时长的随机抖动比例
+     */
+    double backoffJitter() default 0.2;
+
+    /**
+     * 退避时长单位
+     */
+    TimeUnit backoffUnit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * 是否缓存成功结果：
+     * 开启后按调用参数缓存最近一次成功的结果，熔断期间优先返回缓存，未命中再调用降级方法。
+     * 仅对同步返回与 CompletableFuture 生效
+     */
+    boolean cacheResults() default false;
+
+    /**
+     * 结果缓存的最大条目数
+     */
+    long cacheMaximumSize() default 1000;
+
+    /**
+     * 结果缓存的过期时间（自写入起）
+     */
+    long cacheTtl() default 10;
+
+    /**
+     * 结果缓存过期时间单位
+     */
+    TimeUnit cacheTtlUnit() default TimeUnit.MINUTES;
+
+    /**
+     * 缓存值是否使用弱引用，内存紧张时可被回收
+     */
+    boolean cacheWeakValues() default false;
+
+    /**
+     * 分区键 SpEL 表达式：
+     * 非空时按表达式从调用参数中计算分区键（如 "#tenantId"、"#p0.shard"），每个分区独立统计与熔断，
+     * 某个分区熔断不影响其他分区；方法级的手动控制仍对所有分区生效。
+     * 按参数名引用需要编译时加上 -parameters，否则使用 #p0 / #a0
+     */
+    String partitionKey() default "";
+
+    /**
+     * 分区键提取器的 Bean 名称，Bean 需实现 IPartitionKeyExtractor，配置后优先于 partitionKey
+     */
+    String partitionKeyExtractor() default "";
+
+    /**
+     * 最大分区数，超出后淘汰最久未访问的分区
+     */
+    long maxPartitions() default 1000;
+
+    /**
+     * 分区闲置多久后被淘汰
+     */
+    long partitionIdleTimeout() default 10;
+
+    /**
+     * 分区闲置时间单位
+     */
+    TimeUnit partitionIdleTimeoutUnit() default TimeUnit.MINUTES;
 }
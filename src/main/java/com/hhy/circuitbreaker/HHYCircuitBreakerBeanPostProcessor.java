@@ -1,11 +1,27 @@
 package com.hhy.circuitbreaker;
 
+import com.hhy.circuitbreaker.index.CircuitBreakerMethodIndex;
+import com.hhy.circuitbreaker.partition.IPartitionKeyExtractor;
 import com.hhy.circuitbreaker.proxy.CglibFactory;
+import com.hhy.circuitbreaker.proxy.JdkProxyFactory;
+import com.hhy.circuitbreaker.proxy.ProxyMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
 
 import java.lang.reflect.Method;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 
 /**
  * <p>
@@ -14,32 +30,120 @@ import java.util.HashSet;
  *
  * @Author hhy
  */
-public class HHYCircuitBreakerBeanPostProcessor implements BeanPostProcessor {
+public class HHYCircuitBreakerBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(HHYCircuitBreakerBeanPostProcessor.class);
+
     private IHHYCircuitBreakerController ihhyCircuitBreakerController;
 
-    public HHYCircuitBreakerBeanPostProcessor(IHHYCircuitBreakerController ihhyCircuitBreakerController) {
+    /**
+     * 超时调用线程池
+     */
+    private ExecutorService callExecutor;
+
+    /**
+     * 线程池舱壁为每个方法单独创建的线程池，容器关闭时一并关闭
+     */
+    private final List<ExecutorService> bulkheadExecutors = new CopyOnWriteArrayList<>();
+
+    /**
+     * 代理生成方式
+     */
+    private final ProxyMode proxyMode;
+
+    /**
+     * 熔断方法索引，每个 Bean 只做一次按类查找
+     */
+    private final CircuitBreakerMethodIndex methodIndex;
+
+    /**
+     * 用于查找分区键提取器 Bean
+     */
+    private BeanFactory beanFactory;
+
+    public HHYCircuitBreakerBeanPostProcessor(IHHYCircuitBreakerController ihhyCircuitBreakerController, ExecutorService callExecutor) {
+        this(ihhyCircuitBreakerController, callExecutor, ProxyMode.SUBCLASS);
+    }
+
+    public HHYCircuitBreakerBeanPostProcessor(IHHYCircuitBreakerController ihhyCircuitBreakerController, ExecutorService callExecutor,
+                                              ProxyMode proxyMode) {
+        this(ihhyCircuitBreakerController, callExecutor, proxyMode,
+                new CircuitBreakerMethodIndex(ClassUtils.getDefaultClassLoader(), true));
+    }
+
+    public HHYCircuitBreakerBeanPostProcessor(IHHYCircuitBreakerController ihhyCircuitBreakerController, ExecutorService callExecutor,
+                                              ProxyMode proxyMode, CircuitBreakerMethodIndex methodIndex) {
         this.ihhyCircuitBreakerController = ihhyCircuitBreakerController;
+        this.callExecutor = callExecutor;
+        this.proxyMode = proxyMode;
+        this.methodIndex = methodIndex;
     }
 
     @Override
     public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
-        final Class<?> beanClass = bean.getClass();
-        final HashSet<Integer> methodsHashCode = new HashSet<>();
-        for (Method method : beanClass.getDeclaredMethods()) {
-            if (method.isAnnotationPresent(HHYCircuitBreaker.class)) {
-                // 熔断注解修饰的方法全部记录下它们的 hashcode
-                methodsHashCode.add(method.hashCode());
+        final Map<Method, HHYCircuitBreaker> annotatedMethods = methodIndex.getAnnotatedMethods(bean.getClass());
+        if (annotatedMethods.isEmpty()) {
+            return bean;
+        }
+        if (proxyMode == ProxyMode.INTERFACE) {
+            final Set<Method> interfaceMethods = JdkProxyFactory.getInterfaceMethods(bean.getClass());
+            if (interfaceMethods != null) {
+                // 接口代理只能拦截接口中声明的方法，其余方法不注册，避免出现永远不会被调用的熔断器
+                final Map<Method, HHYCircuitBreaker> reachable = new LinkedHashMap<>(annotatedMethods);
+                reachable.keySet().removeIf(method -> {
+                    if (interfaceMethods.contains(method)) {
+                        return false;
+                    }
+                    logger.warn("方法 {} 不在 {} 的任何接口中，接口代理模式下不会被熔断", method.getName(), bean.getClass().getName());
+                    return true;
+                });
+                if (reachable.isEmpty()) {
+                    return bean;
+                }
+                return JdkProxyFactory.getProxy(bean, createDescriptors(bean, beanName, reachable), ihhyCircuitBreakerController, callExecutor);
             }
         }
-        if (!methodsHashCode.isEmpty()) {
-            try {
-                return CglibFactory.getProxy(bean, methodsHashCode, ihhyCircuitBreakerController);
-            } catch (NoSuchFieldException e) {
-                throw new RuntimeException(e);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
+        return CglibFactory.getProxy(bean, createDescriptors(bean, beanName, annotatedMethods), ihhyCircuitBreakerController, callExecutor);
+    }
+
+    /**
+     * 熔断注解修饰的方法在此一次性解析为描述符并注册到熔断控制器，调用期间不再反射
+     */
+    private List<CircuitBreakerMethodDescriptor> createDescriptors(Object bean, String beanName, Map<Method, HHYCircuitBreaker> annotatedMethods) {
+        final List<CircuitBreakerMethodDescriptor> descriptors = new ArrayList<>(annotatedMethods.size());
+        for (Map.Entry<Method, HHYCircuitBreaker> entry : annotatedMethods.entrySet()) {
+            CircuitBreakerMethodDescriptor descriptor = CircuitBreakerMethodDescriptor.of(bean, beanName, entry.getKey(), entry.getValue(), ihhyCircuitBreakerController,
+                    resolvePartitionKeyExtractor(entry.getValue()));
+            if (descriptor.getBulkhead() != null && descriptor.getBulkhead().getExecutor() != null) {
+                bulkheadExecutors.add(descriptor.getBulkhead().getExecutor());
             }
+            descriptors.add(descriptor);
+        }
+        return descriptors;
+    }
+
+    /**
+     * @return 注解未指定提取器 Bean 时返回 null
+     */
+    private IPartitionKeyExtractor resolvePartitionKeyExtractor(HHYCircuitBreaker hhyCircuitBreaker) {
+        final String beanName = hhyCircuitBreaker.partitionKeyExtractor();
+        if (beanName.isEmpty()) {
+            return null;
+        }
+        if (beanFactory == null) {
+            throw new IllegalStateException("未设置 BeanFactory，无法查找分区键提取器: " + beanName);
+        }
+        return beanFactory.getBean(beanName, IPartitionKeyExtractor.class);
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void destroy() {
+        for (ExecutorService executor : bulkheadExecutors) {
+            executor.shutdownNow();
         }
-        return bean;
     }
 }
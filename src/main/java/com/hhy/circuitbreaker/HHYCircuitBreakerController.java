@@ -1,23 +1,26 @@
 package com.hhy.circuitbreaker;
 
+import com.hhy.circuitbreaker.alert.AlertDispatcher;
 import com.hhy.circuitbreaker.alert.IAlertService;
+import com.hhy.circuitbreaker.backoff.ExponentialBackoff;
+import com.hhy.circuitbreaker.backoff.IBackoffStrategy;
 import com.hhy.circuitbreaker.config.HHYCircuitBreakerProperties;
+import com.hhy.circuitbreaker.metrics.IBreakerMetrics;
+import com.hhy.circuitbreaker.scheduler.IBreakerScheduler;
+import com.hhy.circuitbreaker.snapshot.MappedBreakerSnapshot;
+import com.hhy.circuitbreaker.store.BreakerStateEvent;
+import com.hhy.circuitbreaker.store.IBreakerStateStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Date;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.DelayQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -28,121 +31,192 @@ import java.util.concurrent.TimeUnit;
  * @Author hhy
  */
 @Component
-public class HHYCircuitBreakerController implements IHHYCircuitBreakerController, ApplicationContextAware {
+public class HHYCircuitBreakerController implements IHHYCircuitBreakerController, ApplicationContextAware, DisposableBean {
     private static final Logger logger = LoggerFactory.getLogger(HHYCircuitBreakerController.class);
 
     private ApplicationContext applicationContext;
 
     /**
-     * 线程池
-     */
-    private static ThreadPoolTaskExecutor executor;
-
-    static {
-        executor = new ThreadPoolTaskExecutor();
-        // 核心线程数
-        executor.setCorePoolSize(2);
-        // 最大线程数
-        executor.setMaxPoolSize(4);
-        // 队列容量
-        executor.setQueueCapacity(96);
-        // 存活时长：60秒
-        executor.setKeepAliveSeconds(60);
-        // 线程名称前缀
-        executor.setThreadNamePrefix("circuit-breaker-");
-        // 拒绝策略：抛异常
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
-        // 设置线程工厂
-        executor.setThreadFactory(Thread::new);
-        // 初始化线程池
-        executor.initialize();
-
-        // 添加钩子，在JVM关闭时优雅地关闭线程池
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            logger.info("关闭熔断线程池...");
-            executor.shutdown();
-            try {
-                if (!executor.getThreadPoolExecutor().awaitTermination(23, TimeUnit.SECONDS)) {
-                    logger.warn("熔断线程池未在23秒内完全关闭，强制关闭");
-                    executor.getThreadPoolExecutor().shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                logger.warn("熔断线程池关闭过程中发生中断", e);
-                executor.getThreadPoolExecutor().shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-            logger.info("熔断线程池已关闭");
-        }));
+     * 熔断恢复定时器
+     */
+    private final IBreakerScheduler scheduler;
 
-        logger.info("熔断线程池准备完毕，核心线程数: {}, 最大线程数: {}, 队列容量: {}", 2, 4, 96);
-    }
+    /**
+     * 控制器已关闭，不再安排新的定时任务
+     */
+    private volatile boolean closed;
 
+    /**
+     * 已注册的熔断方法，下标即方法编号（也是快照中的槽位）
+     * 只在创建代理时写入（写时复制），供状态查询、手动控制与快照遍历；请求期间直接读描述符上的状态，不经过这里
+     */
+    private volatile MethodWrapper[] registry = new MethodWrapper[0];
 
     /**
-     * 延时队列
+     * 熔断指标
      */
-    private DelayQueue<MethodWrapper> circuitMethodHolder = new DelayQueue<>();
+    private final IBreakerMetrics metrics;
 
     /**
-     * 熔断的方法
+     * 集群状态共享
      */
-    private Set<Integer> methodSet = new HashSet<>();
+    private final IBreakerStateStore stateStore;
+
+    /**
+     * 全局退避策略，方法未配置自己的策略时使用
+     */
+    private volatile IBackoffStrategy backoffStrategy;
+
+    /**
+     * 异步告警分发，未设置时在定时器线程上直接调用告警器
+     */
+    private volatile AlertDispatcher alertDispatcher;
+
+    /**
+     * 状态快照，未配置时为 null
+     */
+    private final MappedBreakerSnapshot snapshot;
 
     private HHYCircuitBreakerProperties properties;
 
-    public HHYCircuitBreakerController(HHYCircuitBreakerProperties properties) {
+    public HHYCircuitBreakerController(HHYCircuitBreakerProperties properties, IBreakerScheduler scheduler) {
+        this(properties, scheduler, IBreakerMetrics.NOOP);
+    }
+
+    public HHYCircuitBreakerController(HHYCircuitBreakerProperties properties, IBreakerScheduler scheduler, IBreakerMetrics metrics) {
+        this(properties, scheduler, metrics, IBreakerStateStore.NOOP);
+    }
+
+    public HHYCircuitBreakerController(HHYCircuitBreakerProperties properties, IBreakerScheduler scheduler, IBreakerMetrics metrics,
+                                       IBreakerStateStore stateStore) {
+        this(properties, scheduler, metrics, stateStore, null);
+    }
+
+    public HHYCircuitBreakerController(HHYCircuitBreakerProperties properties, IBreakerScheduler scheduler, IBreakerMetrics metrics,
+                                       IBreakerStateStore stateStore, MappedBreakerSnapshot snapshot) {
         this.properties = properties;
-        run();
-    }
-
-    public void run() {
-        Thread circuitListener = new Thread(() -> {
-            logger.info("熔断监听线程已启动");
-
-            while (true) {
-                try {
-                    logger.debug("等待获取熔断方法...");
-                    MethodWrapper methodWrapper = circuitMethodHolder.take();
-                    logger.info("开始处理熔断方法: {}.{}",
-                            methodWrapper.getMethod().getDeclaringClass().getSimpleName(),
-                            methodWrapper.getMethod().getName());
-
-                    executor.execute(() -> {
-                        logger.debug("在独立线程中执行熔断方法: {}", methodWrapper.getMethod().getName());
-
-                        if (methodWrapper.invoke()) {
-                            logger.info("方法调用成功，移除熔断标识: {}", methodWrapper.getMethod().getName());
-                            final Method method = methodWrapper.getMethod();
-                            // TODO: 只有被熔断方法被及时调用成功才会移除熔断记录，导致被熔断的服务重启后无法被当前进程感知，造成永久熔断，需要改进
-                            methodSet.remove(method.hashCode());
-                        } else {
-                            logger.warn("方法调用失败: {}", methodWrapper.getMethod().getName());
-                            // 调用失败，说明服务仍然不可用，准备重试
-                            if (methodWrapper.incrAndGetRetryCount() >= properties.getMaxRetry()) {
-                                logger.error("达到最大重试次数，触发告警: {}", methodWrapper.getMethod().getName());
-                                IAlertService alerter = applicationContext.getBean(properties.getAlertName(), IAlertService.class);
-                                alerter.alert(methodWrapper);
-                            } else {
-                                long retryInterval = properties.getRetryInterval();
-                                logger.info("方法 [{}] 第 {} 次重试，间隔 {} ms",
-                                        methodWrapper.getMethod().getName(),
-                                        methodWrapper.getRetriedCount(),
-                                        retryInterval);
-
-                                methodWrapper.setExpire(System.currentTimeMillis() + retryInterval);
-                                circuitMethodHolder.add(methodWrapper);
-                            }
-                        }
-                    });
-                } catch (Exception e) {
-                    logger.error("熔断监听线程发生异常", e);
-                    throw new RuntimeException(e);
-                }
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+        this.stateStore = stateStore;
+        this.snapshot = snapshot;
+        this.backoffStrategy = new ExponentialBackoff(properties.getRetryInterval(), properties.getBackoffMultiplier(),
+                properties.getBackoffMaxInterval(), properties.getBackoffJitter());
+        stateStore.subscribe(this::onRemoteEvent);
+        if (snapshot != null) {
+            scheduleSnapshot();
+        }
+    }
+
+    /**
+     * 定期写入状态快照，单次写入失败不影响后续写入；关闭后由 {@link #destroy()} 写入最后一次
+     */
+    private void scheduleSnapshot() {
+        schedule(() -> {
+            if (closed) {
+                return;
+            }
+            try {
+                snapshot.write(registry);
+            } catch (RuntimeException e) {
+                logger.error("写入熔断状态快照失败", e);
+            } finally {
+                scheduleSnapshot();
+            }
+        }, properties.getSnapshotInterval());
+    }
+
+    /**
+     * 安排定时任务；控制器关闭后或定时器已停止时不再安排
+     *
+     * @param delayMillis 延时（毫秒）
+     * @return 任务句柄，未安排时返回 null
+     */
+    private IBreakerScheduler.Handle schedule(Runnable task, long delayMillis) {
+        if (closed) {
+            return null;
+        }
+        try {
+            return scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // 定时器被其他地方提前停止，进程正在退出
+            logger.debug("熔断定时器已停止，不再安排任务");
+            return null;
+        }
+    }
+
+    /**
+     * 按快照恢复熔断状态，剩余的等待期照常计时，已过期的立即进入半开；手动设置的状态原样恢复
+     */
+    private void restore(MethodWrapper methodWrapper) {
+        final CircuitState restored = snapshot.restore(methodWrapper);
+        if (restored == CircuitState.FORCED_OPEN || restored == CircuitState.DISABLED) {
+            methodWrapper.getState().compareAndSet(CircuitState.CLOSED, restored);
+            logger.warn("方法 [{}] 从快照恢复手动设置的状态: {}", methodWrapper.getMethod().getName(), restored);
+            return;
+        }
+        if (restored == null || restored == CircuitState.CLOSED
+                || !methodWrapper.getState().compareAndSet(CircuitState.CLOSED, CircuitState.OPEN)) {
+            return;
+        }
+        methodWrapper.getMetrics().onStateTransition(CircuitState.CLOSED, CircuitState.OPEN);
+        final long delay = Math.max(0, methodWrapper.getExpire() - System.currentTimeMillis());
+        logger.warn("方法 [{}] 从快照恢复熔断状态，{} ms 后进入半开", methodWrapper.getMethod().getName(), delay);
+        methodWrapper.setOpenTimer(schedule(() -> onOpenExpired(methodWrapper), delay));
+    }
+
+    /**
+     * 替换全局退避策略
+     */
+    public void setBackoffStrategy(IBackoffStrategy backoffStrategy) {
+        this.backoffStrategy = backoffStrategy;
+    }
+
+    public void setAlertDispatcher(AlertDispatcher alertDispatcher) {
+        this.alertDispatcher = alertDispatcher;
+    }
+
+    /**
+     * 熔断等待期结束，由定时器线程池回调
+     */
+    private void onOpenExpired(MethodWrapper methodWrapper) {
+        logger.info("开始处理熔断方法: {}.{}",
+                methodWrapper.getMethod().getDeclaringClass().getSimpleName(),
+                methodWrapper.getMethod().getName());
+
+        if (methodWrapper.getRetriedCount() == properties.getMaxRetry()) {
+            // 每轮故障只告警一次，之后仍按退避策略继续试探，服务恢复后可以自动关闭熔断
+            logger.error("达到最大重试次数，触发告警: {}", methodWrapper.getMethod().getName());
+            final AlertDispatcher dispatcher = alertDispatcher;
+            if (dispatcher != null) {
+                dispatcher.submit(methodWrapper);
+            } else {
+                applicationContext.getBean(properties.getAlertName(), IAlertService.class).alert(methodWrapper);
             }
-        }, "circuit-listener-");
-        circuitListener.setDaemon(true);
-        circuitListener.start();
-        logger.info("熔断监听线程已设置为守护线程，并启动");
+        }
+        if (methodWrapper.getState().transitionToHalfOpen(properties.getHalfOpenPermittedCalls())) {
+            methodWrapper.getMetrics().onStateTransition(CircuitState.OPEN, CircuitState.HALF_OPEN);
+            // 等待期结束，放行有限个真实请求进行试探，不再重放旧请求
+            logger.info("方法 [{}] 进入半开状态，放行 {} 个试探请求",
+                    methodWrapper.getMethod().getName(),
+                    properties.getHalfOpenPermittedCalls());
+            final int round = methodWrapper.getState().getHalfOpenRound();
+            methodWrapper.setOpenTimer(schedule(() -> onHalfOpenExpired(methodWrapper, round), properties.getHalfOpenMaxWait()));
+        }
+    }
+
+    /**
+     * 半开状态超时仍未结束，视为试探失败，重新熔断并按退避策略安排下一轮
+     *
+     * @param round 安排任务时的半开轮次，熔断器已进入新一轮时忽略
+     */
+    private void onHalfOpenExpired(MethodWrapper methodWrapper, int round) {
+        final CircuitBreakerState state = methodWrapper.getState();
+        if (state.get() != CircuitState.HALF_OPEN || state.getHalfOpenRound() != round) {
+            return;
+        }
+        logger.warn("方法 [{}] 半开状态超过 {} ms 仍未完成试探，重新熔断",
+                methodWrapper.getMethod().getName(), properties.getHalfOpenMaxWait());
+        trigger(methodWrapper);
     }
 
     @Override
@@ -152,14 +226,195 @@ public class HHYCircuitBreakerController implements IHHYCircuitBreakerController
 
     @Override
     public void trigger(MethodWrapper methodInvoker) {
-        methodInvoker.setExpire(System.currentTimeMillis() + properties.getRetryInterval());
-        methodSet.add(methodInvoker.getMethod().hashCode());
-        circuitMethodHolder.offer(methodInvoker);
+        final long delay = open(methodInvoker, null);
+        // 分区熔断器未注册（没有方法编号），只在本实例内生效
+        if (delay >= 0 && methodInvoker.getMethodId() >= 0) {
+            stateStore.publish(new BreakerStateEvent(methodInvoker.getKey(), CircuitState.OPEN, delay));
+        }
+    }
+
+    /**
+     * 打开熔断并安排等待期结束后的恢复
+     *
+     * @param remote 触发熔断的其他实例的事件，本实例自己判定熔断时为 null
+     * @return 本轮等待时长（毫秒）；未由本次调用完成状态迁移时返回 -1
+     */
+    private long open(MethodWrapper methodInvoker, BreakerStateEvent remote) {
+        final CircuitBreakerState state = methodInvoker.getState();
+        final CircuitState from = state.get();
+        // 多个请求线程可能同时判定需要熔断，只有 CAS 成功的线程负责登记与调度；手动设置的状态不受影响
+        // 其他实例的熔断只同步到关闭状态的方法，本实例正在进行的半开试探照常进行
+        final boolean allowed = from == CircuitState.CLOSED || (from == CircuitState.HALF_OPEN && remote == null);
+        if (!allowed || !state.compareAndSet(from, CircuitState.OPEN)) {
+            return -1;
+        }
+        methodInvoker.getMetrics().onStateTransition(from, CircuitState.OPEN);
+        if (remote != null) {
+            logger.warn("方法 [{}] 已在集群其他实例上熔断，同步熔断", methodInvoker.getMethod().getName());
+        } else if (from == CircuitState.HALF_OPEN) {
+            // 试探失败，说明服务仍然不可用
+            final int retriedCount = methodInvoker.incrAndGetRetryCount();
+            logger.warn("方法 [{}] 试探失败，第 {} 次重新熔断", methodInvoker.getMethod().getName(), retriedCount);
+        } else {
+            logger.warn("方法 [{}] 失败率或慢调用比例超过阈值，触发熔断", methodInvoker.getMethod().getName());
+        }
+        // 清空该方法的窗口，恢复后重新统计，避免熔断前的失败再次触发熔断
+        methodInvoker.getRequestRate().reset();
+        // 同步的熔断沿用发布者剩余的等待时长，两个实例同时进入半开
+        final long delay = remote != null ? remote.getOpenMillis() : backoffOf(methodInvoker).nextDelay(methodInvoker.getRetriedCount());
+        methodInvoker.setExpire(System.currentTimeMillis() + delay);
+        logger.info("方法 [{}] 将在 {} ms 后进入半开状态", methodInvoker.getMethod().getName(), delay);
+        methodInvoker.setOpenTimer(schedule(() -> onOpenExpired(methodInvoker), delay));
+        return delay;
+    }
+
+    /**
+     * 方法自己配置了退避参数时使用方法级策略，否则使用全局策略
+     */
+    private IBackoffStrategy backoffOf(MethodWrapper methodWrapper) {
+        return methodWrapper.getBackoff() != null ? methodWrapper.getBackoff() : backoffStrategy;
     }
 
     @Override
-    public boolean exist(int methodHashCode) {
-        return methodSet.contains(methodHashCode);
+    public void onTrialSuccess(MethodWrapper methodInvoker, int round) {
+        if (methodInvoker.getState().onTrialSuccess(round)) {
+            methodInvoker.getMetrics().onStateTransition(CircuitState.HALF_OPEN, CircuitState.CLOSED);
+            logger.info("方法调用成功，关闭熔断: {}", methodInvoker.getMethod().getName());
+            methodInvoker.setRetriedCount(0);
+            methodInvoker.getRequestRate().reset();
+            if (methodInvoker.getMethodId() >= 0) {
+                stateStore.publish(new BreakerStateEvent(methodInvoker.getKey(), CircuitState.CLOSED, 0));
+            }
+        }
+    }
+
+    /**
+     * 其他实例的状态迁移：熔断则同步熔断，恢复则同步恢复；半开状态各实例自己试探
+     */
+    private void onRemoteEvent(BreakerStateEvent event) {
+        for (MethodWrapper methodWrapper : registry) {
+            if (!methodWrapper.getKey().equals(event.getKey())) {
+                continue;
+            }
+            if (event.getState() == CircuitState.OPEN) {
+                // 事件只带相对时长，不比较两台机器的时钟；没有剩余等待期的事件不再同步
+                if (event.getOpenMillis() > 0) {
+                    open(methodWrapper, event);
+                }
+            } else if (event.getState() == CircuitState.CLOSED) {
+                closeRemotely(methodWrapper);
+            }
+        }
+    }
+
+    private void closeRemotely(MethodWrapper methodWrapper) {
+        final CircuitBreakerState state = methodWrapper.getState();
+        final CircuitState from = state.get();
+        if ((from != CircuitState.OPEN && from != CircuitState.HALF_OPEN) || !state.compareAndSet(from, CircuitState.CLOSED)) {
+            return;
+        }
+        cancelOpenTimer(methodWrapper);
+        methodWrapper.getMetrics().onStateTransition(from, CircuitState.CLOSED);
+        logger.info("方法 [{}] 已在集群其他实例上恢复，关闭熔断", methodWrapper.getMethod().getName());
+        methodWrapper.setRetriedCount(0);
+        methodWrapper.getRequestRate().reset();
+    }
+
+    @Override
+    public synchronized int register(MethodWrapper methodInvoker) {
+        final MethodWrapper[] current = registry;
+        final int methodId = current.length;
+        final MethodWrapper[] next = Arrays.copyOf(current, methodId + 1);
+        next[methodId] = methodInvoker;
+        methodInvoker.setMethodId(methodId);
+        methodInvoker.setMetrics(metrics.forMethod(methodInvoker));
+        final CircuitBreakerArbiter arbiter = methodInvoker.getRequestRate();
+        if (arbiter.getMinimumNumberOfCalls() < 0) {
+            arbiter.setMinimumNumberOfCalls(properties.getMinimumNumberOfCalls());
+        }
+        if (snapshot != null) {
+            restore(methodInvoker);
+        }
+        registry = next;
+        return methodId;
+    }
+
+    /**
+     * 关闭顺序由控制器决定，不依赖 Bean 的销毁顺序：先停止安排新任务，再写入最后一次快照，最后停止定时器
+     */
+    @Override
+    public void destroy() {
+        closed = true;
+        try {
+            if (snapshot != null) {
+                snapshot.write(registry);
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Override
+    public List<BreakerStatus> list() {
+        final MethodWrapper[] current = registry;
+        final List<BreakerStatus> statuses = new ArrayList<>(current.length);
+        for (MethodWrapper methodWrapper : current) {
+            statuses.add(new BreakerStatus(methodWrapper));
+        }
+        return statuses;
+    }
+
+    @Override
+    public boolean forceOpen(String key) {
+        return control(key, CircuitState.FORCED_OPEN, false);
+    }
+
+    @Override
+    public boolean forceClose(String key) {
+        return control(key, CircuitState.CLOSED, false);
+    }
+
+    @Override
+    public boolean disable(String key) {
+        return control(key, CircuitState.DISABLED, false);
+    }
+
+    @Override
+    public boolean reset(String key) {
+        return control(key, CircuitState.CLOSED, true);
+    }
+
+    /**
+     * 手动切换状态：一次原子替换后请求线程立即生效，同时取消未到期的恢复任务
+     *
+     * @param clear 是否清空窗口统计与重试次数
+     */
+    private boolean control(String key, CircuitState update, boolean clear) {
+        boolean found = false;
+        for (MethodWrapper methodWrapper : registry) {
+            if (!methodWrapper.getKey().equals(key)) {
+                continue;
+            }
+            found = true;
+            final CircuitState from = methodWrapper.getState().getAndSet(update);
+            cancelOpenTimer(methodWrapper);
+            if (clear) {
+                methodWrapper.setRetriedCount(0);
+                methodWrapper.getRequestRate().reset();
+            }
+            if (from != update) {
+                methodWrapper.getMetrics().onStateTransition(from, update);
+            }
+            logger.warn("方法 [{}] 手动切换熔断状态: {} -> {}{}", methodWrapper.getMethod().getName(), from, update, clear ? "，已重置统计" : "");
+        }
+        return found;
+    }
+
+    private static void cancelOpenTimer(MethodWrapper methodWrapper) {
+        final IBreakerScheduler.Handle openTimer = methodWrapper.getOpenTimer();
+        if (openTimer != null) {
+            openTimer.cancel();
+        }
     }
 
 }
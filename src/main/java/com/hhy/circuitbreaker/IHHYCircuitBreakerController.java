@@ -1,5 +1,7 @@
 package com.hhy.circuitbreaker;
 
+import java.util.List;
+
 /**
  * <p>
  * 描述: 熔断控制器
@@ -9,6 +11,13 @@ package com.hhy.circuitbreaker;
  */
 public interface IHHYCircuitBreakerController {
 
+    /**
+     * 注册熔断方法，在创建代理时调用
+     * @param methodInvoker
+     * @return 分配给该方法的编号
+     */
+    int register(MethodWrapper methodInvoker);
+
     /**
      * 触发熔断
      * @param methodInvoker
@@ -16,10 +25,43 @@ public interface IHHYCircuitBreakerController {
     void trigger(MethodWrapper methodInvoker);
 
     /**
-     * 被熔断方法是否已包含当前方法
-     * @param methodHashCode 方法哈希值
-     * @return
+     * 半开状态下的试探请求调用成功
+     * @param methodInvoker
+     * @param round 试探许可所属的半开轮次，熔断器已进入其他轮次时忽略
+     */
+    void onTrialSuccess(MethodWrapper methodInvoker, int round);
+
+    /**
+     * 列出所有熔断方法的当前状态与窗口统计
+     */
+    List<BreakerStatus> list();
+
+    /**
+     * 手动打开熔断，不会自动恢复，直到手动关闭或重置
+     * @param key 方法标识，见 {@link MethodWrapper#getKey()}
+     * @return 是否存在该方法
+     */
+    boolean forceOpen(String key);
+
+    /**
+     * 手动关闭熔断，保留窗口统计
+     * @param key 方法标识
+     * @return 是否存在该方法
+     */
+    boolean forceClose(String key);
+
+    /**
+     * 停用熔断：请求直接放行，不统计也不熔断，直到手动关闭或重置
+     * @param key 方法标识
+     * @return 是否存在该方法
+     */
+    boolean disable(String key);
+
+    /**
+     * 重置：关闭熔断并清空窗口统计与重试次数
+     * @param key 方法标识
+     * @return 是否存在该方法
      */
-    boolean exist(int methodHashCode);
+    boolean reset(String key);
 
 }
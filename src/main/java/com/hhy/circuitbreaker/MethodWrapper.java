@@ -1,103 +1,125 @@
 package com.hhy.circuitbreaker;
 
-import java.lang.reflect.InvocationTargetException;
+import com.hhy.circuitbreaker.backoff.IBackoffStrategy;
+import com.hhy.circuitbreaker.metrics.IMethodMetrics;
+import com.hhy.circuitbreaker.scheduler.IBreakerScheduler;
+import org.springframework.util.ClassUtils;
+
 import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.Objects;
-import java.util.concurrent.Delayed;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>
  * 描述: 方法包装类，封装后续重试所需的一些信息
+ * 每个实例对应一个独立的熔断器，相等性按实例判断
  * </p>
  *
  * @Author hhy
  */
-public class MethodWrapper implements Delayed {
+public class MethodWrapper {
+    /**
+     * 方法编号，注册到熔断控制器时分配，从 0 开始连续递增
+     */
+    private int methodId = -1;
+
+    /**
+     * 方法在集群内的唯一标识，首次使用时生成
+     */
+    private String key;
+
+    /**
+     * 本轮熔断等待期的定时任务，用于提前结束等待
+     */
+    private volatile IBreakerScheduler.Handle openTimer;
+
     /**
      * 对象
      */
     private Object object;
 
     /**
-     * 方法
+     * 对象的 Bean 名称，不是由容器创建的代理时为 null
      */
-    private Method method;
+    private String beanName;
 
     /**
-     * 方法参数
+     * 方法
      */
-    private Object[] parameters;
+    private Method method;
 
     /**
-     * 过期时间戳
+     * 熔断等待期结束的时间戳
      */
-    private long expire;
+    private volatile long expire;
 
     /**
-     * 已重试次数
+     * 已重试次数，由定时器线程与请求线程共同更新
      */
-    private int retriedCount;
+    private final AtomicInteger retriedCount = new AtomicInteger();
 
     /**
      * 熔断裁决器
      */
     private CircuitBreakerArbiter circuitBreakerArbiter;
 
-    public MethodWrapper(Object object, Method method, CircuitBreakerArbiter circuitBreakerArbiter) {
+    /**
+     * 熔断状态机
+     */
+    private final CircuitBreakerState state;
+
+    /**
+     * 该方法自己的退避策略，为 null 时使用熔断控制器的全局策略
+     */
+    private IBackoffStrategy backoff;
+
+    /**
+     * 指标记录器，注册时由熔断控制器设置
+     */
+    private IMethodMetrics metrics = IMethodMetrics.NOOP;
+
+    public MethodWrapper(Object object, Method method, CircuitBreakerArbiter circuitBreakerArbiter, CircuitBreakerState state) {
         this.object = object;
         this.method = method;
         this.circuitBreakerArbiter = circuitBreakerArbiter;
+        this.state = state;
     }
 
     /**
      * 已重试次数自增，返回新值
      */
     public int incrAndGetRetryCount() {
-        return ++this.retriedCount;
+        return retriedCount.incrementAndGet();
     }
 
     /**
-     * 调用原方法
+     * 方法在集群内的唯一标识：类名#方法名(参数类型)，不同实例中的同一方法相同；分区熔断器在其后追加 [分区键]
      */
-    public boolean invoke() {
-        try {
-            method.invoke(object, parameters);
-            return true;
-        } catch (Exception e) {
-            return false;
+    public String getKey() {
+        if (key == null) {
+            StringBuilder builder = new StringBuilder(ClassUtils.getUserClass(object).getName())
+                    .append('#').append(method.getName()).append('(');
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(parameterTypes[i].getName());
+            }
+            key = builder.append(')').toString();
         }
+        return key;
     }
 
-    @Override
-    public long getDelay(TimeUnit unit) {
-        return unit.convert(this.expire - System.currentTimeMillis(), unit);
-    }
-
-    @Override
-    public int compareTo(Delayed o) {
-        return (int) (this.getDelay(TimeUnit.MILLISECONDS) - o.getDelay(TimeUnit.MILLISECONDS));
+    public void setKey(String key) {
+        this.key = key;
     }
 
-    @Override
-    public String toString() {
-        return super.toString();
+    public int getMethodId() {
+        return methodId;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (!(o instanceof MethodWrapper)) return false;
-        MethodWrapper that = (MethodWrapper) o;
-        return expire == that.expire && retriedCount == that.retriedCount && Objects.equals(object, that.object) && Objects.equals(method, that.method) && Arrays.equals(parameters, that.parameters) && Objects.equals(circuitBreakerArbiter, that.circuitBreakerArbiter);
-    }
-
-    @Override
-    public int hashCode() {
-        int result = Objects.hash(object, method, expire, retriedCount, circuitBreakerArbiter);
-        result = 31 * result + Arrays.hashCode(parameters);
-        return result;
+    public void setMethodId(int methodId) {
+        this.methodId = methodId;
     }
 
     public Object getObject() {
@@ -108,20 +130,20 @@ public class MethodWrapper implements Delayed {
         this.object = object;
     }
 
-    public Method getMethod() {
-        return method;
+    public String getBeanName() {
+        return beanName;
     }
 
-    public void setMethod(Method method) {
-        this.method = method;
+    public void setBeanName(String beanName) {
+        this.beanName = beanName;
     }
 
-    public Object[] getParameters() {
-        return parameters;
+    public Method getMethod() {
+        return method;
     }
 
-    public void setParameters(Object[] parameters) {
-        this.parameters = parameters;
+    public void setMethod(Method method) {
+        this.method = method;
     }
 
     public long getExpire() {
@@ -133,11 +155,11 @@ public class MethodWrapper implements Delayed {
     }
 
     public int getRetriedCount() {
-        return retriedCount;
+        return retriedCount.get();
     }
 
     public void setRetriedCount(int retriedCount) {
-        this.retriedCount = retriedCount;
+        this.retriedCount.set(retriedCount);
     }
 
     public CircuitBreakerArbiter getRequestRate() {
@@ -147,4 +169,32 @@ public class MethodWrapper implements Delayed {
     public void setRequestRate(CircuitBreakerArbiter circuitBreakerArbiter) {
         this.circuitBreakerArbiter = circuitBreakerArbiter;
     }
+
+    public IBreakerScheduler.Handle getOpenTimer() {
+        return openTimer;
+    }
+
+    public void setOpenTimer(IBreakerScheduler.Handle openTimer) {
+        this.openTimer = openTimer;
+    }
+
+    public CircuitBreakerState getState() {
+        return state;
+    }
+
+    public IBackoffStrategy getBackoff() {
+        return backoff;
+    }
+
+    public void setBackoff(IBackoffStrategy backoff) {
+        this.backoff = backoff;
+    }
+
+    public IMethodMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(IMethodMetrics metrics) {
+        this.metrics = metrics;
+    }
 }
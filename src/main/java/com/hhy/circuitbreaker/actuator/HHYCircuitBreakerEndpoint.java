@@ -0,0 +1,66 @@
+package com.hhy.circuitbreaker.actuator;
+
+import com.hhy.circuitbreaker.BreakerStatus;
+import com.hhy.circuitbreaker.IHHYCircuitBreakerController;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 描述: 熔断器 Actuator 端点
+ * GET /actuator/circuitbreakers 列出所有熔断方法；
+ * POST /actuator/circuitbreakers/{key}，请求体 {"action": "force-open|force-close|disable|reset"} 手动控制。
+ * key 为 类名#方法名(参数类型)，在路径中需要 URL 编码
+ * </p>
+ *
+ * @Author hhy
+ */
+@Endpoint(id = "circuitbreakers")
+public class HHYCircuitBreakerEndpoint {
+    private final IHHYCircuitBreakerController controller;
+
+    public HHYCircuitBreakerEndpoint(IHHYCircuitBreakerController controller) {
+        this.controller = controller;
+    }
+
+    @ReadOperation
+    public List<BreakerStatus> breakers() {
+        return controller.list();
+    }
+
+    @ReadOperation
+    public BreakerStatus breaker(@Selector String key) {
+        for (BreakerStatus status : controller.list()) {
+            if (status.getKey().equals(key)) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    @WriteOperation
+    public BreakerStatus control(@Selector String key, String action) {
+        final boolean found;
+        switch (action) {
+            case "force-open":
+                found = controller.forceOpen(key);
+                break;
+            case "force-close":
+                found = controller.forceClose(key);
+                break;
+            case "disable":
+                found = controller.disable(key);
+                break;
+            case "reset":
+                found = controller.reset(key);
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的操作: " + action + "，可选 force-open、force-close、disable、reset");
+        }
+        return found ? breaker(key) : null;
+    }
+}
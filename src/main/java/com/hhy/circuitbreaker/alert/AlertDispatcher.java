@@ -0,0 +1,239 @@
+package com.hhy.circuitbreaker.alert;
+
+import com.hhy.circuitbreaker.MethodWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * 描述: 异步告警分发
+ * 提交告警只是入队（有界、无锁，队列满时丢弃并计数），由告警线程按批次周期取出，
+ * 同一方法在批次内合并为一条，并且在最小告警间隔内只发送一次，被抑制的次数累计到下一次告警中。
+ * 每个批次依次交给所有告警器，慢的告警器只会拖慢告警线程，不影响熔断恢复
+ * </p>
+ *
+ * @Author hhy
+ */
+public class AlertDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(AlertDispatcher.class);
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 队列中的告警数
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * 因队列已满被丢弃的告警数
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final int queueCapacity;
+
+    private final long batchIntervalNanos;
+
+    private final long minIntervalMillis;
+
+    /**
+     * 告警器，首次分发时解析
+     */
+    private final Supplier<List<IAlertService>> sinksSupplier;
+
+    private List<IAlertService> sinks;
+
+    /**
+     * 方法标识 -> 上次发送告警的时间戳，只由告警线程访问
+     */
+    private final Map<String, Long> lastSent = new HashMap<>();
+
+    /**
+     * 方法标识 -> 因限流被抑制、尚未发送的告警，只由告警线程访问
+     */
+    private final Map<String, Coalesced> suppressed = new HashMap<>();
+
+    private final Thread dispatcherThread;
+
+    /**
+     * 告警线程因队列为空而挂起，只有此时提交告警才需要唤醒它，批次周期内不会被提前唤醒
+     */
+    private final AtomicBoolean idle = new AtomicBoolean();
+
+    private volatile boolean running = true;
+
+    /**
+     * @param sinksSupplier 告警器
+     * @param queueCapacity 队列容量
+     * @param batchInterval 批次周期
+     * @param minInterval 同一方法两次告警的最小间隔
+     * @param unit 时间单位
+     */
+    public AlertDispatcher(Supplier<List<IAlertService>> sinksSupplier, int queueCapacity, long batchInterval, long minInterval, TimeUnit unit) {
+        this.sinksSupplier = sinksSupplier;
+        this.queueCapacity = queueCapacity;
+        this.batchIntervalNanos = Math.max(1L, unit.toNanos(batchInterval));
+        this.minIntervalMillis = unit.toMillis(minInterval);
+        this.dispatcherThread = new Thread(this::dispatchLoop, "circuit-alert-dispatcher");
+        this.dispatcherThread.setDaemon(true);
+        this.dispatcherThread.start();
+    }
+
+    /**
+     * 提交告警，不阻塞
+     * @return 队列已满时返回 false
+     */
+    public boolean submit(MethodWrapper methodWrapper) {
+        if (!running || queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        queue.offer(new Pending(methodWrapper, System.currentTimeMillis()));
+        if (idle.compareAndSet(true, false)) {
+            LockSupport.unpark(dispatcherThread);
+        }
+        return true;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 停止告警线程，队列中剩余的告警发送后退出
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(dispatcherThread);
+        try {
+            dispatcherThread.join(TimeUnit.NANOSECONDS.toMillis(batchIntervalNanos) + 5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            if (queue.isEmpty() && suppressed.isEmpty()) {
+                idle.set(true);
+                // 设置标记后再检查一次，标记之前入队的告警不会唤醒告警线程
+                if (queue.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                idle.set(false);
+                continue;
+            }
+            // 攒满一个批次周期，期间只有停止告警线程才会提前结束
+            final long deadline = System.nanoTime() + batchIntervalNanos;
+            long remaining;
+            while (running && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            dispatchBatch();
+        }
+        dispatchBatch();
+    }
+
+    private void dispatchBatch() {
+        final long now = System.currentTimeMillis();
+        // 合并本批次的告警
+        final Map<String, Coalesced> batch = new LinkedHashMap<>();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            queued.decrementAndGet();
+            final String key = pending.methodWrapper.getKey();
+            Coalesced coalesced = batch.get(key);
+            if (coalesced == null) {
+                coalesced = suppressed.remove(key);
+                if (coalesced == null) {
+                    coalesced = new Coalesced(pending.methodWrapper, pending.timestamp);
+                }
+                batch.put(key, coalesced);
+            }
+            coalesced.occurrences++;
+        }
+        // 之前被抑制的告警到期后补发
+        for (Iterator<Map.Entry<String, Coalesced>> it = suppressed.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<String, Coalesced> entry = it.next();
+            if (!batch.containsKey(entry.getKey()) && !isRateLimited(entry.getKey(), now)) {
+                batch.put(entry.getKey(), entry.getValue());
+                it.remove();
+            }
+        }
+        final List<AlertEvent> events = new ArrayList<>(batch.size());
+        for (Map.Entry<String, Coalesced> entry : batch.entrySet()) {
+            final Coalesced coalesced = entry.getValue();
+            if (isRateLimited(entry.getKey(), now)) {
+                suppressed.put(entry.getKey(), coalesced);
+                continue;
+            }
+            lastSent.put(entry.getKey(), now);
+            events.add(new AlertEvent(coalesced.methodWrapper, coalesced.timestamp, coalesced.occurrences));
+        }
+        final long droppedCount = dropped.getAndSet(0);
+        if (droppedCount > 0) {
+            logger.warn("告警队列已满，丢弃 {} 条告警", droppedCount);
+        }
+        if (!events.isEmpty()) {
+            send(events);
+        }
+    }
+
+    private boolean isRateLimited(String key, long now) {
+        final Long last = lastSent.get(key);
+        return last != null && now - last < minIntervalMillis;
+    }
+
+    private void send(List<AlertEvent> events) {
+        if (sinks == null) {
+            try {
+                sinks = sinksSupplier.get();
+            } catch (RuntimeException e) {
+                logger.error("解析告警器失败，丢弃 {} 条告警", events.size(), e);
+                return;
+            }
+        }
+        for (IAlertService sink : sinks) {
+            try {
+                sink.alert(events);
+            } catch (RuntimeException e) {
+                logger.error("告警器 {} 发送失败", sink.getClass().getName(), e);
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final MethodWrapper methodWrapper;
+        private final long timestamp;
+
+        private Pending(MethodWrapper methodWrapper, long timestamp) {
+            this.methodWrapper = methodWrapper;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static final class Coalesced {
+        private final MethodWrapper methodWrapper;
+        private final long timestamp;
+        private int occurrences;
+
+        private Coalesced(MethodWrapper methodWrapper, long timestamp) {
+            this.methodWrapper = methodWrapper;
+            this.timestamp = timestamp;
+        }
+    }
+}
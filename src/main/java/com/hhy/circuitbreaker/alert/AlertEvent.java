@@ -0,0 +1,46 @@
+package com.hhy.circuitbreaker.alert;
+
+import com.hhy.circuitbreaker.MethodWrapper;
+
+/**
+ * <p>
+ * 描述: 告警事件，同一方法在一个批次内的多次告警合并为一条
+ * </p>
+ *
+ * @Author hhy
+ */
+public final class AlertEvent {
+    private final MethodWrapper methodWrapper;
+
+    /**
+     * 首次告警的时间戳
+     */
+    private final long timestamp;
+
+    /**
+     * 合并的告警次数，包含因限流被抑制的次数
+     */
+    private final int occurrences;
+
+    public AlertEvent(MethodWrapper methodWrapper, long timestamp, int occurrences) {
+        this.methodWrapper = methodWrapper;
+        this.timestamp = timestamp;
+        this.occurrences = occurrences;
+    }
+
+    public MethodWrapper getMethodWrapper() {
+        return methodWrapper;
+    }
+
+    public String getKey() {
+        return methodWrapper.getKey();
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+}
@@ -2,6 +2,8 @@ package com.hhy.circuitbreaker.alert;
 
 import com.hhy.circuitbreaker.MethodWrapper;
 
+import java.util.List;
+
 /**
  * <p>
  * 描述: 告警器接口
@@ -11,4 +13,15 @@ import com.hhy.circuitbreaker.MethodWrapper;
  */
 public interface IAlertService {
     void alert(MethodWrapper methodWrapper);
+
+    /**
+     * 批量告警，由 {@link AlertDispatcher} 在告警线程上调用，每个批次调用一次
+     * 默认逐条调用 {@link #alert(MethodWrapper)}，可以重写为一次发送一条汇总消息
+     * @param events 同一方法只有一条
+     */
+    default void alert(List<AlertEvent> events) {
+        for (AlertEvent event : events) {
+            alert(event.getMethodWrapper());
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package com.hhy.circuitbreaker.backoff;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>
+ * 描述: 带上限与随机抖动的指数退避
+ * 等待时长 = min(上限, 初始值 * 倍数^试探失败次数)，再随机缩短最多 jitter 比例，
+ * 避免多个实例在同一时刻同时试探刚恢复的服务。倍数为 1 且不抖动时退化为固定间隔
+ * </p>
+ *
+ * @Author hhy
+ */
+public class ExponentialBackoff implements IBackoffStrategy {
+    /**
+     * 初始等待时长（毫秒）
+     */
+    private final long initialInterval;
+
+    /**
+     * 每次试探失败后等待时长的倍数
+     */
+    private final double multiplier;
+
+    /**
+     * 等待时长上限（毫秒）
+     */
+    private final long maxInterval;
+
+    /**
+     * 抖动比例，取值 [0, 1]
+     */
+    private final double jitter;
+
+    public ExponentialBackoff(long initialInterval, double multiplier, long maxInterval, double jitter) {
+        if (initialInterval <= 0 || multiplier < 1 || jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("退避参数不合法: initialInterval=" + initialInterval
+                    + ", multiplier=" + multiplier + ", jitter=" + jitter);
+        }
+        this.initialInterval = initialInterval;
+        this.multiplier = multiplier;
+        this.maxInterval = Math.max(initialInterval, maxInterval);
+        this.jitter = jitter;
+    }
+
+    @Override
+    public long nextDelay(int attempt) {
+        final double base = Math.min(maxInterval, initialInterval * Math.pow(multiplier, Math.max(0, attempt)));
+        final double delay = jitter == 0 ? base : base * (1 - jitter * ThreadLocalRandom.current().nextDouble());
+        return Math.max(1L, (long) delay);
+    }
+
+    @Override
+    public String toString() {
+        return "ExponentialBackoff{initial=" + initialInterval + "ms, multiplier=" + multiplier
+                + ", max=" + maxInterval + "ms, jitter=" + jitter + "}";
+    }
+}
@@ -0,0 +1,17 @@
+package com.hhy.circuitbreaker.backoff;
+
+/**
+ * <p>
+ * 描述: 熔断等待期策略，决定每次熔断后多久进入半开状态，可替换为自定义实现
+ * </p>
+ *
+ * @Author hhy
+ */
+public interface IBackoffStrategy {
+    /**
+     * 计算本次熔断的等待时长
+     * @param attempt 本轮故障中连续试探失败的次数，首次熔断为 0
+     * @return 等待时长（毫秒）
+     */
+    long nextDelay(int attempt);
+}
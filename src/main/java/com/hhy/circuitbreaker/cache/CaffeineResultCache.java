@@ -0,0 +1,39 @@
+package com.hhy.circuitbreaker.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 描述: 基于 Caffeine 的结果缓存，W-TinyLFU 淘汰，支持按写入时间过期与弱引用值
+ * </p>
+ *
+ * @Author hhy
+ */
+final class CaffeineResultCache implements IResultCache {
+    private final Cache<ResultCacheKey, Object> cache;
+
+    CaffeineResultCache(long maximumSize, long ttlNanos, boolean weakValues) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlNanos, TimeUnit.NANOSECONDS);
+        if (weakValues) {
+            builder.weakValues();
+        }
+        this.cache = builder.build();
+    }
+
+    @Override
+    public void put(Object[] args, Object value) {
+        if (value != null) {
+            cache.put(new ResultCacheKey(args), value);
+        }
+    }
+
+    @Override
+    public Object get(Object[] args) {
+        return cache.getIfPresent(new ResultCacheKey(args));
+    }
+}
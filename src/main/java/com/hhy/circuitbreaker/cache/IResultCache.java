@@ -0,0 +1,24 @@
+package com.hhy.circuitbreaker.cache;
+
+/**
+ * <p>
+ * 描述: 熔断方法的结果缓存，熔断期间按参数返回最近一次成功的结果
+ * </p>
+ *
+ * @Author hhy
+ */
+public interface IResultCache {
+
+    /**
+     * 记录一次成功调用的结果
+     * @param args 调用参数
+     * @param value 返回值，null 不缓存
+     */
+    void put(Object[] args, Object value);
+
+    /**
+     * @param args 调用参数
+     * @return 缓存的结果，不存在或已过期时返回 null
+     */
+    Object get(Object[] args);
+}
@@ -0,0 +1,72 @@
+package com.hhy.circuitbreaker.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * 描述: 类路径上没有 Caffeine 时使用的结果缓存，按访问顺序淘汰，读取时检查过期
+ * </p>
+ *
+ * @Author hhy
+ */
+final class LruResultCache implements IResultCache {
+    private final long ttlNanos;
+    private final boolean weakValues;
+    private final Map<ResultCacheKey, Entry> entries;
+
+    LruResultCache(long maximumSize, long ttlNanos, boolean weakValues) {
+        this.ttlNanos = ttlNanos;
+        this.weakValues = weakValues;
+        this.entries = new LinkedHashMap<ResultCacheKey, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ResultCacheKey, Entry> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    @Override
+    public void put(Object[] args, Object value) {
+        if (value == null) {
+            return;
+        }
+        Entry entry = new Entry(weakValues ? new WeakReference<>(value) : value, System.nanoTime() + ttlNanos);
+        ResultCacheKey key = new ResultCacheKey(args);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    @Override
+    public Object get(Object[] args) {
+        ResultCacheKey key = new ResultCacheKey(args);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            Object value = entry.value();
+            if (value == null || System.nanoTime() - entry.expireAt > 0) {
+                entries.remove(key);
+                return null;
+            }
+            return value;
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long expireAt;
+
+        private Entry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        private Object value() {
+            return value instanceof WeakReference ? ((WeakReference<?>) value).get() : value;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.hhy.circuitbreaker.cache;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * 描述: 以调用参数为内容的缓存键
+ * </p>
+ *
+ * @Author hhy
+ */
+final class ResultCacheKey {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Object[] args;
+    private final int hashCode;
+
+    ResultCacheKey(Object[] args) {
+        // 复制参数数组，避免调用方之后修改影响缓存键
+        this.args = args == null || args.length == 0 ? NO_ARGS : args.clone();
+        this.hashCode = Arrays.deepHashCode(this.args);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ResultCacheKey)) return false;
+        ResultCacheKey that = (ResultCacheKey) o;
+        return hashCode == that.hashCode && Arrays.deepEquals(args, that.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -0,0 +1,34 @@
+package com.hhy.circuitbreaker.cache;
+
+import com.hhy.circuitbreaker.HHYCircuitBreaker;
+import org.springframework.util.ClassUtils;
+
+/**
+ * <p>
+ * 描述: 结果缓存工厂，优先使用 Caffeine
+ * </p>
+ *
+ * @Author hhy
+ */
+public final class ResultCaches {
+    private static final boolean CAFFEINE_PRESENT =
+            ClassUtils.isPresent("com.github.benmanes.caffeine.cache.Caffeine", ResultCaches.class.getClassLoader());
+
+    private ResultCaches() {
+    }
+
+    /**
+     * @return 注解未开启结果缓存时返回 null
+     */
+    public static IResultCache create(HHYCircuitBreaker hhyCircuitBreaker) {
+        if (!hhyCircuitBreaker.cacheResults()) {
+            return null;
+        }
+        final long maximumSize = Math.max(1, hhyCircuitBreaker.cacheMaximumSize());
+        final long ttlNanos = hhyCircuitBreaker.cacheTtlUnit().toNanos(hhyCircuitBreaker.cacheTtl());
+        if (CAFFEINE_PRESENT) {
+            return new CaffeineResultCache(maximumSize, ttlNanos, hhyCircuitBreaker.cacheWeakValues());
+        }
+        return new LruResultCache(maximumSize, ttlNanos, hhyCircuitBreaker.cacheWeakValues());
+    }
+}
@@ -3,10 +3,43 @@ package com.hhy.circuitbreaker.config;
 import com.hhy.circuitbreaker.HHYCircuitBreakerBeanPostProcessor;
 import com.hhy.circuitbreaker.HHYCircuitBreakerController;
 import com.hhy.circuitbreaker.IHHYCircuitBreakerController;
+import com.hhy.circuitbreaker.actuator.HHYCircuitBreakerEndpoint;
+import com.hhy.circuitbreaker.alert.AlertDispatcher;
 import com.hhy.circuitbreaker.alert.DefaultAlert;
+import com.hhy.circuitbreaker.alert.IAlertService;
+import com.hhy.circuitbreaker.backoff.IBackoffStrategy;
+import com.hhy.circuitbreaker.metrics.IBreakerMetrics;
+import com.hhy.circuitbreaker.metrics.MicrometerBreakerMetrics;
+import com.hhy.circuitbreaker.index.CircuitBreakerMethodIndex;
+import com.hhy.circuitbreaker.proxy.CallExecutors;
+import com.hhy.circuitbreaker.proxy.ProxyMode;
+import com.hhy.circuitbreaker.scheduler.HashedWheelTimerScheduler;
+import com.hhy.circuitbreaker.scheduler.IBreakerScheduler;
+import com.hhy.circuitbreaker.snapshot.MappedBreakerSnapshot;
+import com.hhy.circuitbreaker.store.IBreakerStateStore;
+import com.hhy.circuitbreaker.store.InProcessBreakerStateStore;
+import com.hhy.circuitbreaker.store.MulticastBreakerStateStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>
@@ -27,14 +60,139 @@ public class HHYCircuitBreakerConfig {
         return new DefaultAlert();
     }
 
+    /**
+     * 熔断线程池，执行到期的恢复任务与告警
+     */
+    @Bean("hhyCircuitBreakerExecutor")
+    @ConditionalOnMissingBean(name = "hhyCircuitBreakerExecutor")
+    public ThreadPoolTaskExecutor hhyCircuitBreakerExecutor(HHYCircuitBreakerProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getExecutorCorePoolSize());
+        executor.setMaxPoolSize(properties.getExecutorMaxPoolSize());
+        executor.setQueueCapacity(properties.getExecutorQueueCapacity());
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("circuit-breaker-");
+        // 拒绝策略：直接拒绝，由时间轮在下一刻度重新投递，避免时间轮线程被到期任务阻塞
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // 关闭时等待已提交的任务执行完
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(23);
+        return executor;
+    }
+
+    /**
+     * 异步告警分发，告警器在首次告警时按名称解析
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(AlertDispatcher.class)
+    public AlertDispatcher alertDispatcher(HHYCircuitBreakerProperties properties, BeanFactory beanFactory) {
+        return new AlertDispatcher(() -> {
+            List<IAlertService> sinks = new ArrayList<>();
+            for (String alertName : StringUtils.commaDelimitedListToStringArray(properties.getAlertName())) {
+                sinks.add(beanFactory.getBean(alertName.trim(), IAlertService.class));
+            }
+            return sinks;
+        }, properties.getAlertQueueCapacity(), properties.getAlertBatchInterval(), properties.getAlertMinInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 定时器由熔断控制器在写完最后一次快照后停止，不由容器销毁
+     */
+    @Bean(destroyMethod = "")
+    @ConditionalOnMissingBean(IBreakerScheduler.class)
+    public IBreakerScheduler breakerScheduler(HHYCircuitBreakerProperties properties,
+                                              @Qualifier("hhyCircuitBreakerExecutor") ThreadPoolTaskExecutor executor) {
+        return new HashedWheelTimerScheduler(executor, properties.getTimerTickDuration(), TimeUnit.MILLISECONDS,
+                properties.getTimerTicksPerWheel());
+    }
+
+    /**
+     * 集群状态共享
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(IBreakerStateStore.class)
+    public IBreakerStateStore breakerStateStore(HHYCircuitBreakerProperties properties) {
+        switch (properties.getStateStore()) {
+            case "none":
+                return IBreakerStateStore.NOOP;
+            case "in-process":
+                return new InProcessBreakerStateStore(properties.getStateStoreFlushInterval(), TimeUnit.MILLISECONDS);
+            case "multicast":
+                return new MulticastBreakerStateStore(properties.getMulticastGroup(), properties.getMulticastPort(),
+                        properties.getMulticastTtl(), properties.getStateStoreFlushInterval(), TimeUnit.MILLISECONDS);
+            default:
+                throw new IllegalArgumentException("不支持的熔断状态共享方式: " + properties.getStateStore());
+        }
+    }
+
+    /**
+     * 状态快照，配置了快照文件时启用，启动时加载上次运行留下的快照
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "hhy.circuit", name = "snapshot-file")
+    public MappedBreakerSnapshot breakerSnapshot(HHYCircuitBreakerProperties properties) {
+        return new MappedBreakerSnapshot(new File(properties.getSnapshotFile()), properties.getSnapshotMaxMethods(),
+                properties.getSnapshotMaxAge());
+    }
+
     @Bean
     @ConditionalOnMissingBean(HHYCircuitBreakerController.class)
-    public IHHYCircuitBreakerController ihhyCircuitBreakerController(HHYCircuitBreakerProperties properties){
-        return new HHYCircuitBreakerController(properties);
+    public IHHYCircuitBreakerController ihhyCircuitBreakerController(HHYCircuitBreakerProperties properties, IBreakerScheduler breakerScheduler,
+                                                                     ObjectProvider<IBreakerMetrics> breakerMetrics, IBreakerStateStore breakerStateStore,
+                                                                     ObjectProvider<MappedBreakerSnapshot> breakerSnapshot,
+                                                                     ObjectProvider<IBackoffStrategy> backoffStrategy,
+                                                                     AlertDispatcher alertDispatcher){
+        HHYCircuitBreakerController controller = new HHYCircuitBreakerController(properties, breakerScheduler,
+                breakerMetrics.getIfAvailable(() -> IBreakerMetrics.NOOP), breakerStateStore, breakerSnapshot.getIfAvailable());
+        // 用户提供了退避策略 Bean 时替换默认的指数退避
+        backoffStrategy.ifAvailable(controller::setBackoffStrategy);
+        controller.setAlertDispatcher(alertDispatcher);
+        return controller;
+    }
+
+    /**
+     * 超时调用线程池，执行配置了 timeout 的熔断方法
+     */
+    @Bean(value = "hhyCircuitBreakerCallExecutor", destroyMethod = "shutdownNow")
+    @ConditionalOnMissingBean(name = "hhyCircuitBreakerCallExecutor")
+    public ExecutorService hhyCircuitBreakerCallExecutor(HHYCircuitBreakerProperties properties) {
+        return CallExecutors.newBoundedExecutor(properties.getCallExecutorMaxThreads(),
+                properties.getCallExecutorQueueCapacity(), "circuit-call-");
     }
 
     @Bean
-    public HHYCircuitBreakerBeanPostProcessor hhyCircuitBreakerBeanPostProcessor(IHHYCircuitBreakerController ihhyCircuitBreakerController){
-        return new HHYCircuitBreakerBeanPostProcessor(ihhyCircuitBreakerController);
+    public HHYCircuitBreakerBeanPostProcessor hhyCircuitBreakerBeanPostProcessor(IHHYCircuitBreakerController ihhyCircuitBreakerController,
+                                                                                 @Qualifier("hhyCircuitBreakerCallExecutor") ExecutorService callExecutor,
+                                                                                 HHYCircuitBreakerProperties properties){
+        return new HHYCircuitBreakerBeanPostProcessor(ihhyCircuitBreakerController, callExecutor,
+                ProxyMode.valueOf(properties.getProxyMode().trim().toUpperCase(Locale.ROOT)),
+                new CircuitBreakerMethodIndex(ClassUtils.getDefaultClassLoader(), !properties.isIgnoreIndex()));
+    }
+
+    /**
+     * 类路径上存在 Actuator 时注册熔断器端点，是否对外暴露由 management.endpoints 配置决定
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    static class ActuatorEndpointConfig {
+        @Bean
+        @ConditionalOnMissingBean(HHYCircuitBreakerEndpoint.class)
+        public HHYCircuitBreakerEndpoint hhyCircuitBreakerEndpoint(IHHYCircuitBreakerController ihhyCircuitBreakerController) {
+            return new HHYCircuitBreakerEndpoint(ihhyCircuitBreakerController);
+        }
+    }
+
+    /**
+     * 类路径上存在 Micrometer 时自动导出熔断指标
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MicrometerMetricsConfig {
+        @Bean
+        @ConditionalOnMissingBean(IBreakerMetrics.class)
+        public IBreakerMetrics breakerMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            // 不在此处获取 MeterRegistry，等到创建代理时再取，保证它已被完整初始化
+            return new MicrometerBreakerMetrics(meterRegistry, () -> Metrics.globalRegistry);
+        }
     }
 }
@@ -16,19 +16,181 @@ import org.springframework.context.annotation.Configuration;
 public class HHYCircuitBreakerProperties {
 
     /**
-     * 最大重试次数
+     * 连续试探失败达到该次数时告警，每轮故障只告警一次，之后继续按退避策略试探
      */
     @Value("${hhy.circuit.max-retry:3}")
     private int maxRetry;
 
     /**
-     * 重试间隔
+     * 重试间隔：首次熔断的等待时长（毫秒），也是退避的初始值
      */
     @Value("${hhy.circuit.retry-interval:5000}")
     private int retryInterval;
 
     /**
-     * 告警器的beanName
+     * 每次试探失败后等待时长的倍数，1 表示固定间隔
+     */
+    @Value("${hhy.circuit.backoff-multiplier:2.0}")
+    private double backoffMultiplier;
+
+    /**
+     * 等待时长上限（毫秒）
+     */
+    @Value("${hhy.circuit.backoff-max-interval:300000}")
+    private long backoffMaxInterval;
+
+    /**
+     * 等待时长的随机抖动比例，取值 [0, 1]
+     */
+    @Value("${hhy.circuit.backoff-jitter:0.2}")
+    private double backoffJitter;
+
+    /**
+     * 最小调用数：窗口内调用数达到该值才判定是否熔断，避免低流量时一次失败就熔断
+     */
+    @Value("${hhy.circuit.minimum-number-of-calls:10}")
+    private int minimumNumberOfCalls;
+
+    /**
+     * 半开状态下放行的试探请求数，全部成功后关闭熔断
+     */
+    @Value("${hhy.circuit.half-open-permitted-calls:3}")
+    private int halfOpenPermittedCalls;
+
+    /**
+     * 半开状态的最长持续时间（毫秒），试探未能在此期间结束时重新熔断，避免丢失的试探许可让熔断器一直停在半开
+     */
+    @Value("${hhy.circuit.half-open-max-wait:60000}")
+    private long halfOpenMaxWait;
+
+    /**
+     * 熔断线程池核心线程数
+     */
+    @Value("${hhy.circuit.executor-core-pool-size:2}")
+    private int executorCorePoolSize;
+
+    /**
+     * 熔断线程池最大线程数
+     */
+    @Value("${hhy.circuit.executor-max-pool-size:4}")
+    private int executorMaxPoolSize;
+
+    /**
+     * 熔断线程池队列容量
+     */
+    @Value("${hhy.circuit.executor-queue-capacity:96}")
+    private int executorQueueCapacity;
+
+    /**
+     * 代理生成方式：subclass 为 CGLIB 子类代理，interface 为 JDK 接口代理
+     */
+    @Value("${hhy.circuit.proxy-mode:subclass}")
+    private String proxyMode;
+
+    /**
+     * 是否忽略编译期生成的熔断索引，部分模块未经注解处理器编译时需要开启，改为逐类扫描
+     */
+    @Value("${hhy.circuit.ignore-index:false}")
+    private boolean ignoreIndex;
+
+    /**
+     * 超时调用线程池最大线程数
+     */
+    @Value("${hhy.circuit.call-executor-max-threads:32}")
+    private int callExecutorMaxThreads;
+
+    /**
+     * 超时调用线程池队列容量
+     */
+    @Value("${hhy.circuit.call-executor-queue-capacity:256}")
+    private int callExecutorQueueCapacity;
+
+    /**
+     * 时间轮刻度（毫秒）
+     */
+    @Value("${hhy.circuit.timer-tick-duration:100}")
+    private long timerTickDuration;
+
+    /**
+     * 时间轮槽位数
+     */
+    @Value("${hhy.circuit.timer-ticks-per-wheel:512}")
+    private int timerTicksPerWheel;
+
+    /**
+     * 集群状态共享方式：none 不共享，in-process 同一 JVM 内共享，multicast UDP 组播
+     */
+    @Value("${hhy.circuit.state-store:none}")
+    private String stateStore;
+
+    /**
+     * 状态共享的批量发布周期（毫秒）
+     */
+    @Value("${hhy.circuit.state-store-flush-interval:5}")
+    private long stateStoreFlushInterval;
+
+    /**
+     * 组播地址
+     */
+    @Value("${hhy.circuit.multicast-group:239.255.27.1}")
+    private String multicastGroup;
+
+    /**
+     * 组播端口
+     */
+    @Value("${hhy.circuit.multicast-port:45678}")
+    private int multicastPort;
+
+    /**
+     * 组播报文的 TTL，1 表示不跨路由器
+     */
+    @Value("${hhy.circuit.multicast-ttl:1}")
+    private int multicastTtl;
+
+    /**
+     * 状态快照文件路径，为空时不做快照
+     */
+    @Value("${hhy.circuit.snapshot-file:}")
+    private String snapshotFile;
+
+    /**
+     * 状态快照写入周期（毫秒）
+     */
+    @Value("${hhy.circuit.snapshot-interval:1000}")
+    private long snapshotInterval;
+
+    /**
+     * 超过这个时长（毫秒）的快照在启动时不再恢复
+     */
+    @Value("${hhy.circuit.snapshot-max-age:60000}")
+    private long snapshotMaxAge;
+
+    /**
+     * 快照最多记录的方法数
+     */
+    @Value("${hhy.circuit.snapshot-max-methods:1024}")
+    private int snapshotMaxMethods;
+
+    /**
+     * 告警队列容量，队列满时丢弃新的告警
+     */
+    @Value("${hhy.circuit.alert-queue-capacity:1024}")
+    private int alertQueueCapacity;
+
+    /**
+     * 告警批次周期（毫秒），同一批次内同一方法的告警合并为一条
+     */
+    @Value("${hhy.circuit.alert-batch-interval:1000}")
+    private long alertBatchInterval;
+
+    /**
+     * 同一方法两次告警的最小间隔（毫秒）
+     */
+    @Value("${hhy.circuit.alert-min-interval:60000}")
+    private long alertMinInterval;
+
+    /**
+     * 告警器的beanName，多个用逗号分隔
      */
     @Value("${hhy.circuit.alert-name:defaultAlert}")
     private String alertName;
@@ -49,6 +211,70 @@ public class HHYCircuitBreakerProperties {
         this.retryInterval = retryInterval;
     }
 
+    public int getHalfOpenPermittedCalls() {
+        return halfOpenPermittedCalls;
+    }
+
+    public void setHalfOpenPermittedCalls(int halfOpenPermittedCalls) {
+        this.halfOpenPermittedCalls = halfOpenPermittedCalls;
+    }
+
+    public int getExecutorCorePoolSize() {
+        return executorCorePoolSize;
+    }
+
+    public void setExecutorCorePoolSize(int executorCorePoolSize) {
+        this.executorCorePoolSize = executorCorePoolSize;
+    }
+
+    public int getExecutorMaxPoolSize() {
+        return executorMaxPoolSize;
+    }
+
+    public void setExecutorMaxPoolSize(int executorMaxPoolSize) {
+        this.executorMaxPoolSize = executorMaxPoolSize;
+    }
+
+    public int getExecutorQueueCapacity() {
+        return executorQueueCapacity;
+    }
+
+    public void setExecutorQueueCapacity(int executorQueueCapacity) {
+        this.executorQueueCapacity = executorQueueCapacity;
+    }
+
+    public int getCallExecutorMaxThreads() {
+        return callExecutorMaxThreads;
+    }
+
+    public void setCallExecutorMaxThreads(int callExecutorMaxThreads) {
+        this.callExecutorMaxThreads = callExecutorMaxThreads;
+    }
+
+    public int getCallExecutorQueueCapacity() {
+        return callExecutorQueueCapacity;
+    }
+
+    public void setCallExecutorQueueCapacity(int callExecutorQueueCapacity) {
+        this.callExecutorQueueCapacity = callExecutorQueueCapacity;
+    }
+
+    public long getTimerTickDuration() {
+        return timerTickDuration;
+    }
+
+    public void setTimerTickDuration(long timerTickDuration) {
+        this.timerTickDuration = timerTickDuration;
+    }
+
+    public int getTimerTicksPerWheel() {
+        return timerTicksPerWheel;
+    }
+
+    public void setTimerTicksPerWheel(int timerTicksPerWheel) {
+        this.timerTicksPerWheel = timerTicksPerWheel;
+    }
+
     public String getAlertName() {
         return alertName;
     }
@@ -56,4 +282,156 @@ public class HHYCircuitBreakerProperties {
     public void setAlertName(String alertName) {
         this.alertName = alertName;
     }
+
+    public String getStateStore() {
+        return stateStore;
+    }
+
+    public void setStateStore(String stateStore) {
+        this.stateStore = stateStore;
+    }
+
+    public long getStateStoreFlushInterval() {
+        return stateStoreFlushInterval;
+    }
+
+    public void setStateStoreFlushInterval(long stateStoreFlushInterval) {
+        this.stateStoreFlushInterval = stateStoreFlushInterval;
+    }
+
+    public String getMulticastGroup() {
+        return multicastGroup;
+    }
+
+    public void setMulticastGroup(String multicastGroup) {
+        this.multicastGroup = multicastGroup;
+    }
+
+    public int getMulticastPort() {
+        return multicastPort;
+    }
+
+    public void setMulticastPort(int multicastPort) {
+        this.multicastPort = multicastPort;
+    }
+
+    public int getMulticastTtl() {
+        return multicastTtl;
+    }
+
+    public void setMulticastTtl(int multicastTtl) {
+        this.multicastTtl = multicastTtl;
+    }
+
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public void setSnapshotFile(String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    public long getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(long snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public long getSnapshotMaxAge() {
+        return snapshotMaxAge;
+    }
+
+    public void setSnapshotMaxAge(long snapshotMaxAge) {
+        this.snapshotMaxAge = snapshotMaxAge;
+    }
+
+    public int getSnapshotMaxMethods() {
+        return snapshotMaxMethods;
+    }
+
+    public void setSnapshotMaxMethods(int snapshotMaxMethods) {
+        this.snapshotMaxMethods = snapshotMaxMethods;
+    }
+
+    public double getBackoffMultiplier() {
+        return backoffMultiplier;
+    }
+
+    public void setBackoffMultiplier(double backoffMultiplier) {
+        this.backoffMultiplier = backoffMultiplier;
+    }
+
+    public long getBackoffMaxInterval() {
+        return backoffMaxInterval;
+    }
+
+    public void setBackoffMaxInterval(long backoffMaxInterval) {
+        this.backoffMaxInterval = backoffMaxInterval;
+    }
+
+    public double getBackoffJitter() {
+        return backoffJitter;
+    }
+
+    public void setBackoffJitter(double backoffJitter) {
+        this.backoffJitter = backoffJitter;
+    }
+
+    public int getAlertQueueCapacity() {
+        return alertQueueCapacity;
+    }
+
+    public void setAlertQueueCapacity(int alertQueueCapacity) {
+        this.alertQueueCapacity = alertQueueCapacity;
+    }
+
+    public long getAlertBatchInterval() {
+        return alertBatchInterval;
+    }
+
+    public void setAlertBatchInterval(long alertBatchInterval) {
+        this.alertBatchInterval = alertBatchInterval;
+    }
+
+    public long getAlertMinInterval() {
+        return alertMinInterval;
+    }
+
+    public void setAlertMinInterval(long alertMinInterval) {
+        this.alertMinInterval = alertMinInterval;
+    }
+
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
+    }
+
+    public String getProxyMode() {
+        return proxyMode;
+    }
+
+    public void setProxyMode(String proxyMode) {
+        this.proxyMode = proxyMode;
+    }
+
+    public boolean isIgnoreIndex() {
+        return ignoreIndex;
+    }
+
+    public void setIgnoreIndex(boolean ignoreIndex) {
+        this.ignoreIndex = ignoreIndex;
+    }
+
+    public long getHalfOpenMaxWait() {
+        return halfOpenMaxWait;
+    }
+
+    public void setHalfOpenMaxWait(long halfOpenMaxWait) {
+        this.halfOpenMaxWait = halfOpenMaxWait;
+    }
 }
@@ -0,0 +1,114 @@
+package com.hhy.circuitbreaker.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * 描述: 熔断索引注解处理器
+ * 编译期收集声明了熔断方法的类，写入 {@link CircuitBreakerMethodIndex#INDEX_LOCATION}，
+ * 运行时据此跳过不可能包含熔断方法的 Bean。增量编译时与已有索引合并。
+ * 处理所有注解而不只是熔断注解：去掉最后一个熔断注解的增量编译里没有熔断注解，也必须重写索引
+ * </p>
+ *
+ * @Author hhy
+ */
+@SupportedAnnotationTypes("*")
+public class CircuitBreakerIndexProcessor extends AbstractProcessor {
+    private static final String ANNOTATION_NAME = "com.hhy.circuitbreaker.HHYCircuitBreaker";
+
+    private final Set<String> classNames = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        final TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION_NAME);
+        if (annotation != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                final Element enclosing = element.getEnclosingElement();
+                if (enclosing instanceof TypeElement) {
+                    classNames.add(processingEnv.getElementUtils().getBinaryName((TypeElement) enclosing).toString());
+                }
+            }
+        }
+        if (roundEnv.processingOver()) {
+            // 没有熔断类时也写入空索引，覆盖上一次编译留下的内容
+            writeIndex();
+        }
+        // 不认领任何注解，其他处理器照常处理
+        return false;
+    }
+
+    private void writeIndex() {
+        readExisting();
+        try {
+            final FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", CircuitBreakerMethodIndex.INDEX_LOCATION);
+            try (Writer writer = file.openWriter()) {
+                for (String className : classNames) {
+                    writer.write(className);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "写入熔断索引失败: " + e);
+        }
+    }
+
+    /**
+     * 增量编译只处理变更的源文件，保留已有索引中仍然存在且仍声明了熔断方法的类；
+     * 本次重新编译的类按新的源文件判断，已删除或去掉了熔断注解的类从索引中移除
+     */
+    private void readExisting() {
+        try {
+            final FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", CircuitBreakerMethodIndex.INDEX_LOCATION);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && declaresBreakerMethod(processingEnv.getElementUtils().getTypeElement(line.replace('$', '.')))) {
+                        classNames.add(line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // 首次编译时索引不存在
+        }
+    }
+
+    private static boolean declaresBreakerMethod(TypeElement type) {
+        if (type == null) {
+            return false;
+        }
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            for (AnnotationMirror mirror : member.getAnnotationMirrors()) {
+                if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(ANNOTATION_NAME)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
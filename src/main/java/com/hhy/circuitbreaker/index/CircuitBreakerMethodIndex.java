@@ -0,0 +1,177 @@
+package com.hhy.circuitbreaker.index;
+
+import com.hhy.circuitbreaker.HHYCircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * 描述: 熔断方法索引
+ * 类路径上存在编译期生成的索引时，只有自身、父类或接口出现在索引中的类才需要扫描方法；
+ * 索引只对带有索引文件的类路径条目（目录或 jar）生效，其余条目中的类逐个检查自身声明的方法。
+ * 扫描结果按类缓存，同一个类只扫描一次。扫描包含从父类与接口继承的熔断注解
+ * </p>
+ *
+ * @Author hhy
+ */
+public class CircuitBreakerMethodIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerMethodIndex.class);
+
+    /**
+     * 索引文件位置，每行一个声明了熔断方法的类名
+     */
+    public static final String INDEX_LOCATION = "META-INF/hhy-circuit-breaker.index";
+
+    /**
+     * 索引中的类名，为 null 表示不使用索引
+     */
+    private final Set<String> indexedClassNames;
+
+    /**
+     * 带有索引文件的类路径条目，形如 {@code file:/app/classes/} 或 {@code jar:file:/app/lib/a.jar!/}
+     */
+    private final Set<String> indexedRoots = new HashSet<>();
+
+    /**
+     * 不在索引覆盖范围内的类 -> 是否声明了熔断方法
+     */
+    private final Map<Class<?>, Boolean> unindexedTypes = new ConcurrentHashMap<>();
+
+    /**
+     * 类 -> 熔断方法及其注解
+     */
+    private final Map<Class<?>, Map<Method, HHYCircuitBreaker>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param useIndex 是否使用编译期索引，为 false 或类路径上没有索引时对每个类扫描一次
+     */
+    public CircuitBreakerMethodIndex(ClassLoader classLoader, boolean useIndex) {
+        this.indexedClassNames = useIndex ? loadIndex(classLoader) : null;
+    }
+
+    private Set<String> loadIndex(ClassLoader classLoader) {
+        final Set<String> classNames = new HashSet<>();
+        try {
+            final Enumeration<URL> urls = classLoader == null ? ClassLoader.getSystemResources(INDEX_LOCATION) : classLoader.getResources(INDEX_LOCATION);
+            if (!urls.hasMoreElements()) {
+                return null;
+            }
+            while (urls.hasMoreElements()) {
+                final URL url = urls.nextElement();
+                indexedRoots.add(rootOf(url, INDEX_LOCATION));
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (!line.isEmpty()) {
+                            classNames.add(line);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("读取熔断索引失败，改为逐类扫描", e);
+            return null;
+        }
+        logger.info("已加载熔断索引，来自 {} 个类路径条目，包含 {} 个类", indexedRoots.size(), classNames.size());
+        return classNames;
+    }
+
+    /**
+     * 查找类中被熔断注解修饰的方法，包括继承自父类与接口的注解
+     *
+     * @return 方法 -> 注解，不可修改
+     */
+    public Map<Method, HHYCircuitBreaker> getAnnotatedMethods(Class<?> beanClass) {
+        final Map<Method, HHYCircuitBreaker> methods = cache.get(beanClass);
+        return methods != null ? methods : cache.computeIfAbsent(beanClass, this::scan);
+    }
+
+    private Map<Method, HHYCircuitBreaker> scan(Class<?> beanClass) {
+        if (!isCandidate(beanClass)) {
+            return Collections.emptyMap();
+        }
+        final Map<Method, HHYCircuitBreaker> methods = MethodIntrospector.selectMethods(beanClass,
+                (MethodIntrospector.MetadataLookup<HHYCircuitBreaker>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, HHYCircuitBreaker.class));
+        return methods.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(methods);
+    }
+
+    /**
+     * 不扫描方法，只根据类名判断是否可能包含熔断方法
+     */
+    private boolean isCandidate(Class<?> beanClass) {
+        if (!AnnotationUtils.isCandidateClass(beanClass, HHYCircuitBreaker.class)) {
+            return false;
+        }
+        if (indexedClassNames == null) {
+            return true;
+        }
+        final Set<Class<?>> types = new LinkedHashSet<>();
+        for (Class<?> type = beanClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            types.add(type);
+        }
+        types.addAll(ClassUtils.getAllInterfacesForClassAsSet(beanClass));
+        boolean candidate = false;
+        for (Class<?> type : types) {
+            if (indexedClassNames.contains(type.getName())) {
+                return true;
+            }
+            if (!candidate && AnnotationUtils.isCandidateClass(type, HHYCircuitBreaker.class)) {
+                candidate = unindexedTypes.computeIfAbsent(type, this::declaresUnindexed);
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * 索引没有覆盖的类（所在类路径条目没有索引文件，或运行时生成）只检查自身声明的方法
+     */
+    private boolean declaresUnindexed(Class<?> type) {
+        final String root = rootOf(type);
+        if (root != null && indexedRoots.contains(root)) {
+            return false;
+        }
+        for (Method method : ReflectionUtils.getDeclaredMethods(type)) {
+            if (AnnotatedElementUtils.hasAnnotation(method, HHYCircuitBreaker.class)) {
+                logger.warn("类 {} 声明了熔断方法，但所在的 {} 没有熔断索引，已改为扫描；请确认该模块经注解处理器编译", type.getName(), root);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 类所在的类路径条目，无法定位时返回 null
+     */
+    private static String rootOf(Class<?> type) {
+        final String resource = ClassUtils.convertClassNameToResourcePath(type.getName()) + ClassUtils.CLASS_FILE_SUFFIX;
+        final ClassLoader classLoader = type.getClassLoader();
+        final URL url = classLoader == null ? ClassLoader.getSystemResource(resource) : classLoader.getResource(resource);
+        return url == null ? null : rootOf(url, resource);
+    }
+
+    private static String rootOf(URL url, String resource) {
+        final String location = url.toString();
+        return location.endsWith(resource) ? location.substring(0, location.length() - resource.length()) : location;
+    }
+}
@@ -0,0 +1,83 @@
+package com.hhy.circuitbreaker.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * 描述: 并发限制器基类，在途调用数与上限都是原子变量，获取与归还许可不加锁
+ * </p>
+ *
+ * @Author hhy
+ */
+public abstract class AbstractConcurrencyLimiter implements IConcurrencyLimiter {
+    /**
+     * 上限的下界
+     */
+    protected final int minLimit;
+
+    /**
+     * 上限的上界
+     */
+    protected final int maxLimit;
+
+    /**
+     * 当前并发上限
+     */
+    protected final AtomicInteger limit;
+
+    /**
+     * 正在执行的调用数
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    protected AbstractConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("并发上限范围不合法: [" + minLimit + ", " + maxLimit + "]");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = new AtomicInteger(clamp(initialLimit));
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void release(long durationNanos, boolean dropped) {
+        // 样本携带调用结束前的在途数，用于判断上限是否真的被用满
+        onSample(durationNanos, inFlight.getAndDecrement(), dropped);
+    }
+
+    /**
+     * 根据一次调用的结果调整上限
+     *
+     * @param rttNanos 调用耗时（纳秒）
+     * @param inFlight 调用结束前的在途调用数
+     * @param dropped 调用是否失败
+     */
+    protected abstract void onSample(long rttNanos, int inFlight, boolean dropped);
+
+    protected int clamp(int newLimit) {
+        return Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    @Override
+    public int getLimit() {
+        return limit.get();
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,63 @@
+package com.hhy.circuitbreaker.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * 描述: 加性增、乘性减的并发限制器
+ * 成功且在途调用达到上限一半以上时上限加一；失败或耗时达到慢调用阈值时上限乘以回退比例，
+ * 开始于上次回退之前的调用不再触发回退，避免一批并发的过载调用把上限连续压到下界
+ * </p>
+ *
+ * @Author hhy
+ */
+public class AimdConcurrencyLimiter extends AbstractConcurrencyLimiter {
+    /**
+     * 默认回退比例
+     */
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    /**
+     * 耗时达到该值视为过载（纳秒），0 表示只按失败回退
+     */
+    private final long slowCallNanos;
+
+    /**
+     * 回退比例
+     */
+    private final double backoffRatio;
+
+    /**
+     * 上次回退的时间（纳秒）
+     */
+    private final AtomicLong lastDecreaseNanos;
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long slowCallNanos) {
+        this(initialLimit, minLimit, maxLimit, slowCallNanos, DEFAULT_BACKOFF_RATIO);
+    }
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long slowCallNanos, double backoffRatio) {
+        super(initialLimit, minLimit, maxLimit);
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("回退比例必须在 (0, 1) 之间: " + backoffRatio);
+        }
+        this.slowCallNanos = slowCallNanos;
+        this.backoffRatio = backoffRatio;
+        this.lastDecreaseNanos = new AtomicLong(System.nanoTime());
+    }
+
+    @Override
+    protected void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped || (slowCallNanos > 0 && rttNanos >= slowCallNanos)) {
+            final long now = System.nanoTime();
+            final long last = lastDecreaseNanos.get();
+            // 同一批过载调用只回退一次：开始于上次回退之前的调用已经反映在那次回退里
+            if (now - rttNanos - last > 0 && lastDecreaseNanos.compareAndSet(last, now)) {
+                limit.updateAndGet(current -> clamp((int) (current * backoffRatio)));
+            }
+        } else if (inFlight * 2 >= limit.get()) {
+            // 负载远低于上限时不增长，避免上限脱离实际并发
+            limit.updateAndGet(current -> clamp(current + 1));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.hhy.circuitbreaker.limit;
+
+/**
+ * <p>
+ * 描述: 自适应并发限制器，按观测到的延迟与失败动态调整单个方法的并发上限
+ * </p>
+ *
+ * @Author hhy
+ */
+public interface IConcurrencyLimiter {
+
+    /**
+     * 非阻塞地获取一个执行许可
+     * @return 当前并发已达到上限时返回 false
+     */
+    boolean tryAcquire();
+
+    /**
+     * 调用结束，归还许可并据此调整上限；每个获取成功的许可必须且只能归还一次
+     * @param durationNanos 调用耗时（纳秒）
+     * @param dropped 调用是否失败
+     */
+    void release(long durationNanos, boolean dropped);
+
+    /**
+     * 当前并发上限
+     */
+    int getLimit();
+
+    /**
+     * 正在执行的调用数
+     */
+    int getInFlight();
+}
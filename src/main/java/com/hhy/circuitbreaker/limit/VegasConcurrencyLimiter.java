@@ -0,0 +1,89 @@
+package com.hhy.circuitbreaker.limit;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * 描述: 基于延迟的并发限制器（TCP Vegas）
+ * 以观测到的最小延迟作为无负载延迟，按 上限 * (1 - 无负载延迟 / 实际延迟) 估算下游排队长度：
+ * 排队少于 alpha 时增大上限，多于 beta 或调用失败时减小上限，步长随上限按 log10 增长。
+ * 每隔一段随机的样本数重置一次无负载延迟，以适应下游基线的变化。
+ * 同一时刻只有一个线程调整上限，其余线程的样本直接丢弃，调用线程不会阻塞
+ * </p>
+ *
+ * @Author hhy
+ */
+public class VegasConcurrencyLimiter extends AbstractConcurrencyLimiter {
+    /**
+     * 重置无负载延迟的平均间隔，以当前上限的倍数计的样本数
+     */
+    private static final int PROBE_MULTIPLIER = 30;
+
+    /**
+     * 是否有线程正在调整上限
+     */
+    private final AtomicBoolean updating = new AtomicBoolean();
+
+    /**
+     * 无负载延迟（纳秒），0 表示尚未观测
+     */
+    private long rttNoLoad;
+
+    /**
+     * 距下次重置无负载延迟还剩的样本数
+     */
+    private int probeCountdown;
+
+    public VegasConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        super(initialLimit, minLimit, maxLimit);
+        this.probeCountdown = nextProbeCountdown(limit.get());
+    }
+
+    @Override
+    protected void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (rttNanos <= 0 || !updating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final int current = limit.get();
+            if (--probeCountdown <= 0) {
+                probeCountdown = nextProbeCountdown(current);
+                rttNoLoad = rttNanos;
+                return;
+            }
+            if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+                rttNoLoad = rttNanos;
+                return;
+            }
+            final int step = log10(current);
+            final int newLimit;
+            if (dropped) {
+                newLimit = current - step;
+            } else if (inFlight * 2 < current) {
+                // 上限没有被用满，延迟不能说明上限是否合适
+                return;
+            } else {
+                final int queueSize = (int) Math.ceil(current * (1 - (double) rttNoLoad / rttNanos));
+                if (queueSize <= 3 * step) {
+                    newLimit = current + step;
+                } else if (queueSize >= 6 * step) {
+                    newLimit = current - step;
+                } else {
+                    return;
+                }
+            }
+            limit.set(clamp(newLimit));
+        } finally {
+            updating.set(false);
+        }
+    }
+
+    private static int log10(int value) {
+        return Math.max(1, (int) Math.log10(value));
+    }
+
+    private static int nextProbeCountdown(int currentLimit) {
+        return (int) (currentLimit * PROBE_MULTIPLIER * (0.5 + ThreadLocalRandom.current().nextDouble()));
+    }
+}
@@ -0,0 +1,24 @@
+package com.hhy.circuitbreaker.metrics;
+
+import com.hhy.circuitbreaker.MethodWrapper;
+
+/**
+ * <p>
+ * 描述: 熔断指标接口，为每个熔断方法创建指标记录器
+ * </p>
+ *
+ * @Author hhy
+ */
+public interface IBreakerMetrics {
+    /**
+     * 不记录任何指标
+     */
+    IBreakerMetrics NOOP = methodWrapper -> IMethodMetrics.NOOP;
+
+    /**
+     * 注册熔断方法时调用，返回该方法的指标记录器
+     * @param methodWrapper
+     * @return
+     */
+    IMethodMetrics forMethod(MethodWrapper methodWrapper);
+}
@@ -0,0 +1,69 @@
+package com.hhy.circuitbreaker.metrics;
+
+import com.hhy.circuitbreaker.CircuitState;
+
+/**
+ * <p>
+ * 描述: 单个熔断方法的指标记录器，在注册熔断方法时创建，调用期间不再分配对象
+ * </p>
+ *
+ * @Author hhy
+ */
+public interface IMethodMetrics {
+    /**
+     * 不记录任何指标
+     */
+    IMethodMetrics NOOP = new IMethodMetrics() { };
+
+    /**
+     * 调用成功
+     * @param durationNanos 调用耗时（纳秒）
+     */
+    default void onSuccess(long durationNanos) { }
+
+    /**
+     * 调用失败
+     * @param durationNanos 调用耗时（纳秒）
+     */
+    default void onFailure(long durationNanos) { }
+
+    /**
+     * 调用耗时超过慢调用阈值
+     */
+    default void onSlowCall() { }
+
+    /**
+     * 调用超时被取消
+     */
+    default void onTimeout() { }
+
+    /**
+     * 舱壁已满，调用被拒绝
+     */
+    default void onBulkheadRejected() { }
+
+    /**
+     * 并发超出自适应上限，调用被舍弃
+     */
+    default void onConcurrencyLimited() { }
+
+    /**
+     * 熔断中，请求未调用原方法
+     */
+    default void onShortCircuited() { }
+
+    /**
+     * 熔断期间命中了结果缓存
+     */
+    default void onCacheHit() { }
+
+    /**
+     * 调用了降级方法
+     */
+    default void onFallback() { }
+
+    /**
+     * 熔断状态迁移
+     */
+    default void onStateTransition(CircuitState from, CircuitState to) { }
+}
@@ -0,0 +1,166 @@
+package com.hhy.circuitbreaker.metrics;
+
+import com.hhy.circuitbreaker.CircuitBreakerState;
+import com.hhy.circuitbreaker.CircuitState;
+import com.hhy.circuitbreaker.MethodWrapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.ClassUtils;
+
+import java.beans.Introspector;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * 描述: 基于 Micrometer 的熔断指标
+ * 每个熔断方法的计数器、计时器与状态仪表在注册时一次性创建
+ * </p>
+ *
+ * @Author hhy
+ */
+public class MicrometerBreakerMetrics implements IBreakerMetrics {
+    public static final String CALLS = "hhy.circuit.calls";
+    public static final String SLOW_CALLS = "hhy.circuit.slow.calls";
+    public static final String TIMEOUTS = "hhy.circuit.timeouts";
+    public static final String BULKHEAD_REJECTIONS = "hhy.circuit.bulkhead.rejections";
+    public static final String CONCURRENCY_LIMITED = "hhy.circuit.concurrency.limited";
+    public static final String CACHE_HITS = "hhy.circuit.cache.hits";
+    public static final String FALLBACKS = "hhy.circuit.fallbacks";
+    public static final String CALL_DURATION = "hhy.circuit.call.duration";
+    public static final String STATE = "hhy.circuit.state";
+    public static final String TRANSITIONS = "hhy.circuit.transitions";
+
+    /**
+     * 延迟获取，避免熔断控制器初始化时提前创建 MeterRegistry
+     */
+    private final Supplier<MeterRegistry> registrySupplier;
+
+    public MicrometerBreakerMetrics(MeterRegistry registry) {
+        this.registrySupplier = () -> registry;
+    }
+
+    public MicrometerBreakerMetrics(ObjectProvider<MeterRegistry> registryProvider, Supplier<MeterRegistry> defaultRegistry) {
+        this.registrySupplier = () -> registryProvider.getIfAvailable(defaultRegistry);
+    }
+
+    @Override
+    public IMethodMetrics forMethod(MethodWrapper methodWrapper) {
+        return new MicrometerMethodMetrics(registrySupplier.get(), methodWrapper);
+    }
+
+    /**
+     * 方法标签：Bean 名称、Bean 原始类的全限定名与带参数类型的方法名，避免同名类、继承同一方法的不同 Bean、
+     * 同一个类的多个 Bean 以及重载方法共用指标；不是 Bean 时按 Spring 的默认规则由类名推导 Bean 名称
+     */
+    private static Tags tagsOf(MethodWrapper methodWrapper) {
+        final Method method = methodWrapper.getMethod();
+        StringBuilder signature = new StringBuilder(method.getName()).append('(');
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                signature.append(',');
+            }
+            signature.append(parameterTypes[i].getSimpleName());
+        }
+        signature.append(')');
+        final Class<?> userClass = ClassUtils.getUserClass(methodWrapper.getObject());
+        final String beanName = methodWrapper.getBeanName() != null
+                ? methodWrapper.getBeanName() : Introspector.decapitalize(ClassUtils.getShortName(userClass));
+        return Tags.of("bean", beanName, "class", userClass.getName(), "method", signature.toString());
+    }
+
+    private static final class MicrometerMethodMetrics implements IMethodMetrics {
+        private final MeterRegistry registry;
+        private final Tags tags;
+        private final Counter success;
+        private final Counter failure;
+        private final Counter shortCircuited;
+        private final Counter slow;
+        private final Counter timeout;
+        private final Counter bulkheadRejected;
+        private final Counter concurrencyLimited;
+        private final Counter cacheHit;
+        private final Counter fallback;
+        private final Timer duration;
+
+        private MicrometerMethodMetrics(MeterRegistry registry, MethodWrapper methodWrapper) {
+            this.registry = registry;
+            this.tags = tagsOf(methodWrapper);
+            this.success = registry.counter(CALLS, tags.and("outcome", "success"));
+            this.failure = registry.counter(CALLS, tags.and("outcome", "failure"));
+            this.shortCircuited = registry.counter(CALLS, tags.and("outcome", "short_circuited"));
+            this.slow = registry.counter(SLOW_CALLS, tags);
+            this.timeout = registry.counter(TIMEOUTS, tags);
+            this.bulkheadRejected = registry.counter(BULKHEAD_REJECTIONS, tags);
+            this.concurrencyLimited = registry.counter(CONCURRENCY_LIMITED, tags);
+            this.cacheHit = registry.counter(CACHE_HITS, tags);
+            this.fallback = registry.counter(FALLBACKS, tags);
+            this.duration = Timer.builder(CALL_DURATION).tags(tags).register(registry);
+            final CircuitBreakerState state = methodWrapper.getState();
+            Gauge.builder(STATE, state, s -> s.get().ordinal())
+                    .tags(tags)
+                    .description("0: CLOSED, 1: OPEN, 2: HALF_OPEN, 3: FORCED_OPEN, 4: DISABLED")
+                    .strongReference(true)
+                    .register(registry);
+        }
+
+        @Override
+        public void onSuccess(long durationNanos) {
+            success.increment();
+            duration.record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void onFailure(long durationNanos) {
+            failure.increment();
+            duration.record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void onSlowCall() {
+            slow.increment();
+        }
+
+        @Override
+        public void onTimeout() {
+            timeout.increment();
+        }
+
+        @Override
+        public void onBulkheadRejected() {
+            bulkheadRejected.increment();
+        }
+
+        @Override
+        public void onConcurrencyLimited() {
+            concurrencyLimited.increment();
+        }
+
+        @Override
+        public void onShortCircuited() {
+            shortCircuited.increment();
+        }
+
+        @Override
+        public void onCacheHit() {
+            cacheHit.increment();
+        }
+
+        @Override
+        public void onFallback() {
+            fallback.increment();
+        }
+
+        @Override
+        public void onStateTransition(CircuitState from, CircuitState to) {
+            // 状态迁移很少发生，按需注册即可
+            registry.counter(TRANSITIONS, tags.and("from", from.name(), "to", to.name())).increment();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.hhy.circuitbreaker.partition;
+
+import com.hhy.circuitbreaker.MethodWrapper;
+import com.hhy.circuitbreaker.scheduler.IBreakerScheduler;
+import org.springframework.util.ClassUtils;
+
+import java.util.function.Function;
+
+/**
+ * <p>
+ * 描述: 分区熔断器集合工厂，优先使用 Caffeine
+ * </p>
+ *
+ * @Author hhy
+ */
+public final class BreakerPartitions {
+    private static final boolean CAFFEINE_PRESENT =
+            ClassUtils.isPresent("com.github.benmanes.caffeine.cache.Caffeine", BreakerPartitions.class.getClassLoader());
+
+    private BreakerPartitions() {
+    }
+
+    /**
+     * @param maximumSize 最大分区数
+     * @param idleNanos 分区闲置多久后淘汰
+     * @param factory 按分区键创建熔断器
+     */
+    public static IBreakerPartitions create(long maximumSize, long idleNanos, Function<Object, MethodWrapper> factory) {
+        if (CAFFEINE_PRESENT) {
+            return new CaffeineBreakerPartitions(maximumSize, idleNanos, factory);
+        }
+        return new ConcurrentBreakerPartitions(maximumSize, idleNanos, factory);
+    }
+
+    /**
+     * 被淘汰的分区不再使用，取消尚未到期的恢复任务
+     */
+    static void onEvicted(MethodWrapper methodWrapper) {
+        final IBreakerScheduler.Handle openTimer = methodWrapper.getOpenTimer();
+        if (openTimer != null) {
+            openTimer.cancel();
+        }
+    }
+}
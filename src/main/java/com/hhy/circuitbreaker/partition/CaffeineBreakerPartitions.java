@@ -0,0 +1,44 @@
+package com.hhy.circuitbreaker.partition;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hhy.circuitbreaker.MethodWrapper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * 描述: 基于 Caffeine 的分区熔断器集合，W-TinyLFU 按容量淘汰，按访问时间过期
+ * </p>
+ *
+ * @Author hhy
+ */
+final class CaffeineBreakerPartitions implements IBreakerPartitions {
+    private final Cache<Object, MethodWrapper> partitions;
+
+    private final Function<Object, MethodWrapper> factory;
+
+    CaffeineBreakerPartitions(long maximumSize, long idleNanos, Function<Object, MethodWrapper> factory) {
+        this.factory = factory;
+        this.partitions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(idleNanos, TimeUnit.NANOSECONDS)
+                .<Object, MethodWrapper>removalListener((key, value, cause) -> {
+                    if (value != null && cause.wasEvicted()) {
+                        BreakerPartitions.onEvicted(value);
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public MethodWrapper get(Object key) {
+        return partitions.get(key, factory);
+    }
+
+    @Override
+    public long size() {
+        return partitions.estimatedSize();
+    }
+}
@@ -0,0 +1,121 @@
+package com.hhy.circuitbreaker.partition;
+
+import com.hhy.circuitbreaker.MethodWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * 描述: 类路径上没有 Caffeine 时使用的分区熔断器集合
+ * 读取不加锁；分区数超出上限时由一个线程批量淘汰闲置分区与最久未访问的分区，
+ * 每次淘汰到上限的 90%，分摊排序的开销
+ * </p>
+ *
+ * @Author hhy
+ */
+final class ConcurrentBreakerPartitions implements IBreakerPartitions {
+    /**
+     * 访问时间的刷新粒度，避免每次调用都写共享变量
+     */
+    private static final long TOUCH_GRANULARITY_NANOS = 1_000_000L;
+
+    private final long maximumSize;
+
+    private final long idleNanos;
+
+    private final Function<Object, MethodWrapper> factory;
+
+    private final Map<Object, Entry> partitions = new ConcurrentHashMap<>();
+
+    /**
+     * 是否有线程正在淘汰
+     */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    ConcurrentBreakerPartitions(long maximumSize, long idleNanos, Function<Object, MethodWrapper> factory) {
+        this.maximumSize = maximumSize;
+        this.idleNanos = idleNanos;
+        this.factory = factory;
+    }
+
+    @Override
+    public MethodWrapper get(Object key) {
+        final long now = System.nanoTime();
+        Entry entry = partitions.get(key);
+        if (entry == null) {
+            entry = partitions.computeIfAbsent(key, k -> new Entry(factory.apply(k), now));
+            if (partitions.size() > maximumSize) {
+                evict(now);
+            }
+        } else if (now - entry.lastAccess > TOUCH_GRANULARITY_NANOS) {
+            entry.lastAccess = now;
+        }
+        return entry.methodWrapper;
+    }
+
+    @Override
+    public long size() {
+        return partitions.size();
+    }
+
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final List<Candidate> candidates = new ArrayList<>(partitions.size());
+            for (Map.Entry<Object, Entry> mapEntry : partitions.entrySet()) {
+                // 访问时间在排序期间仍可能被刷新，先取一份快照
+                final long lastAccess = mapEntry.getValue().lastAccess;
+                if (now - lastAccess > idleNanos) {
+                    remove(mapEntry.getKey(), mapEntry.getValue());
+                } else {
+                    candidates.add(new Candidate(mapEntry.getKey(), mapEntry.getValue(), lastAccess));
+                }
+            }
+            final long excess = candidates.size() - maximumSize * 9 / 10;
+            if (excess <= 0) {
+                return;
+            }
+            candidates.sort((a, b) -> Long.compare(a.lastAccess, b.lastAccess));
+            for (int i = 0; i < excess; i++) {
+                remove(candidates.get(i).key, candidates.get(i).entry);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private void remove(Object key, Entry entry) {
+        if (partitions.remove(key, entry)) {
+            BreakerPartitions.onEvicted(entry.methodWrapper);
+        }
+    }
+
+    private static final class Entry {
+        private final MethodWrapper methodWrapper;
+        private volatile long lastAccess;
+
+        private Entry(MethodWrapper methodWrapper, long lastAccess) {
+            this.methodWrapper = methodWrapper;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static final class Candidate {
+        private final Object key;
+        private final Entry entry;
+        private final long lastAccess;
+
+        private Candidate(Object key, Entry entry, long lastAccess) {
+            this.key = key;
+            this.entry = entry;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.hhy.circuitbreaker.partition;
+
+import com.hhy.circuitbreaker.MethodWrapper;
+
+/**
+ * <p>
+ * 描述: 一个熔断方法下按分区键划分的熔断器集合，容量有上限，长期未访问或超出容量的分区被淘汰
+ * </p>
+ *
+ * @Author hhy
+ */
+public interface IBreakerPartitions {
+
+    /**
+     * 获取分区的熔断器，不存在时创建
+     * @param key 分区键，不为 null
+     */
+    MethodWrapper get(Object key);
+
+    /**
+     * 当前分区数
+     */
+    long size();
+}
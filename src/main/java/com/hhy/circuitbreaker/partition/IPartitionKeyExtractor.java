@@ -0,0 +1,22 @@
+package com.hhy.circuitbreaker.partition;
+
+import java.lang.reflect.Method;
+
+/**
+ * <p>
+ * 描述: 分区键提取器，从调用参数中提取分区键，每个分区拥有独立的熔断状态
+ * </p>
+ *
+ * @Author hhy
+ */
+@FunctionalInterface
+public interface IPartitionKeyExtractor {
+
+    /**
+     * 提取分区键，在每次调用的请求线程上执行，应当足够轻量
+     * @param method 熔断方法
+     * @param args 调用参数
+     * @return 分区键，需要正确实现 equals 与 hashCode；null 视为同一个分区
+     */
+    Object extract(Method method, Object[] args);
+}
@@ -0,0 +1,151 @@
+package com.hhy.circuitbreaker.partition;
+
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.ConstructorResolver;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.OperatorOverloader;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeComparator;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * 描述: 基于 SpEL 的分区键提取器，表达式在创建时解析一次，参数名按方法解析一次，
+ * 可以通过 #p0 / #a0 或参数名引用调用参数，例如 "#tenantId" 或 "#p0.shard"。
+ * 参数名只有在编译时加上 -parameters（或保留调试信息）时才能取到，否则只能使用 #p0 / #a0。
+ * 表达式只能读取参数的属性与调用参数的实例方法，不能引用类型、创建对象或修改参数
+ * </p>
+ *
+ * @Author hhy
+ */
+public class SpelPartitionKeyExtractor implements IPartitionKeyExtractor {
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    /**
+     * 所有调用共用的只读上下文，不保存变量
+     */
+    private static final EvaluationContext SHARED_CONTEXT = SimpleEvaluationContext.forReadOnlyDataBinding()
+            .withInstanceMethods().build();
+
+    private final Expression expression;
+
+    /**
+     * 方法 -> 变量名（#p0、#a0 与参数名）到参数下标的映射
+     */
+    private final Map<Method, Map<String, Integer>> variableIndexes = new ConcurrentHashMap<>();
+
+    public SpelPartitionKeyExtractor(String expression) {
+        this.expression = PARSER.parseExpression(expression);
+    }
+
+    @Override
+    public Object extract(Method method, Object[] args) {
+        Map<String, Integer> indexes = variableIndexes.get(method);
+        if (indexes == null) {
+            indexes = variableIndexes.computeIfAbsent(method, SpelPartitionKeyExtractor::resolveVariableIndexes);
+        }
+        // 每次调用只绑定参数，其余全部委托给共用的上下文
+        return expression.getValue(new ArgumentContext(indexes, args));
+    }
+
+    private static Map<String, Integer> resolveVariableIndexes(Method method) {
+        final String[] parameterNames = PARAMETER_NAME_DISCOVERER.getParameterNames(method);
+        final Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            indexes.put("p" + i, i);
+            indexes.put("a" + i, i);
+            if (parameterNames != null && parameterNames[i] != null) {
+                indexes.put(parameterNames[i], i);
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * 以调用参数作为变量的只读上下文
+     */
+    private static final class ArgumentContext implements EvaluationContext {
+        private final Map<String, Integer> indexes;
+        private final Object[] args;
+
+        private ArgumentContext(Map<String, Integer> indexes, Object[] args) {
+            this.indexes = indexes;
+            this.args = args;
+        }
+
+        @Override
+        public Object lookupVariable(String name) {
+            final Integer index = indexes.get(name);
+            return index != null && index < args.length ? args[index] : null;
+        }
+
+        @Override
+        public void setVariable(String name, Object value) {
+            // 分区键表达式不能修改调用参数
+            throw new SpelEvaluationException(SpelMessage.NOT_ASSIGNABLE, "#" + name);
+        }
+
+        @Override
+        public TypedValue getRootObject() {
+            return SHARED_CONTEXT.getRootObject();
+        }
+
+        @Override
+        public List<PropertyAccessor> getPropertyAccessors() {
+            return SHARED_CONTEXT.getPropertyAccessors();
+        }
+
+        @Override
+        public List<ConstructorResolver> getConstructorResolvers() {
+            return SHARED_CONTEXT.getConstructorResolvers();
+        }
+
+        @Override
+        public List<MethodResolver> getMethodResolvers() {
+            return SHARED_CONTEXT.getMethodResolvers();
+        }
+
+        @Override
+        public BeanResolver getBeanResolver() {
+            return SHARED_CONTEXT.getBeanResolver();
+        }
+
+        @Override
+        public TypeLocator getTypeLocator() {
+            return SHARED_CONTEXT.getTypeLocator();
+        }
+
+        @Override
+        public TypeConverter getTypeConverter() {
+            return SHARED_CONTEXT.getTypeConverter();
+        }
+
+        @Override
+        public TypeComparator getTypeComparator() {
+            return SHARED_CONTEXT.getTypeComparator();
+        }
+
+        @Override
+        public OperatorOverloader getOperatorOverloader() {
+            return SHARED_CONTEXT.getOperatorOverloader();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.hhy.circuitbreaker.proxy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * 描述: 超时调用线程池工厂
+ * JDK 21 及以上使用虚拟线程并以信号量限制并发，否则使用有界平台线程池；超出容量的调用直接被拒绝
+ * </p>
+ *
+ * @Author hhy
+ */
+public final class CallExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(CallExecutors.class);
+
+    private CallExecutors() {
+    }
+
+    /**
+     * @param maxThreads 最大并发执行数
+     * @param queueCapacity 排队容量，为 0 时不排队，线程全忙即拒绝；虚拟线程模式下计入并发上限
+     * @param namePrefix 线程名称前缀
+     */
+    public static ExecutorService newBoundedExecutor(int maxThreads, int queueCapacity, String namePrefix) {
+        if (maxThreads <= 0) {
+            throw new IllegalArgumentException(namePrefix + " 最大线程数必须大于0: " + maxThreads);
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException(namePrefix + " 队列容量不能为负数: " + queueCapacity);
+        }
+        ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+        if (virtualThreadExecutor != null) {
+            logger.info("{} 使用虚拟线程，最大并发: {}", namePrefix, maxThreads + queueCapacity);
+            return new SemaphoreBoundedExecutor(virtualThreadExecutor, maxThreads + queueCapacity);
+        }
+        final AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, namePrefix + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        logger.info("{} 使用平台线程，最大线程数: {}, 队列容量: {}", namePrefix, maxThreads, queueCapacity);
+        return executor;
+    }
+
+    /**
+     * 编译目标为 Java 8，通过反射获取 JDK 21 的虚拟线程池
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 以信号量限制并发的线程池包装，许可不足时立即拒绝
+     */
+    private static final class SemaphoreBoundedExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        private SemaphoreBoundedExecutor(ExecutorService delegate, int maxConcurrency) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (!permits.tryAcquire()) {
+                throw new RejectedExecutionException("超时调用并发已达上限");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        command.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
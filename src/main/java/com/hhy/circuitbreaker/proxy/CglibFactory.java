@@ -1,10 +1,18 @@
 package com.hhy.circuitbreaker.proxy;
 
+import com.hhy.circuitbreaker.CircuitBreakerMethodDescriptor;
 import com.hhy.circuitbreaker.IHHYCircuitBreakerController;
+import org.springframework.cglib.proxy.Callback;
 import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.NoOp;
 
 import java.lang.reflect.Field;
-import java.util.Set;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 /**
  * <p>
@@ -14,11 +22,22 @@ import java.util.Set;
  * @Author hhy
  */
 public class CglibFactory {
-    public static <T> T getProxy(Object bean, Set<Integer> methods, IHHYCircuitBreakerController hhyCircuitBreakerController) throws NoSuchFieldException, IllegalAccessException {
+    public static <T> T getProxy(Object bean, List<CircuitBreakerMethodDescriptor> descriptors, IHHYCircuitBreakerController hhyCircuitBreakerController,
+                                 ExecutorService callExecutor) {
         final Class<?> aClass = bean.getClass();
+        // 下标 0 为 NoOp，其余每个熔断方法一个拦截器
+        final Callback[] callbacks = new Callback[descriptors.size() + 1];
+        final Map<Method, Integer> callbackIndexes = new HashMap<>();
+        callbacks[HHYCircuitBreakerCallbackFilter.PASS_THROUGH] = NoOp.INSTANCE;
+        for (int i = 0; i < descriptors.size(); i++) {
+            CircuitBreakerMethodDescriptor descriptor = descriptors.get(i);
+            callbacks[i + 1] = new HHYCircuitBreakerMethodInterceptor(descriptor, hhyCircuitBreakerController, callExecutor);
+            callbackIndexes.put(descriptor.getMethod(), i + 1);
+        }
         Enhancer enhancer = new Enhancer();
         enhancer.setSuperclass(aClass);
-        enhancer.setCallback(new HHYCircuitBreakerMethodInterceptor(bean, methods, hhyCircuitBreakerController));
+        enhancer.setCallbackFilter(new HHYCircuitBreakerCallbackFilter(callbackIndexes));
+        enhancer.setCallbacks(callbacks);
         final T t = (T) enhancer.create();
         // 将原始对象的字段值复制到代理对象上
         copyBeanProperties(bean, t);
@@ -27,12 +46,17 @@ public class CglibFactory {
 
     private static <T> void copyBeanProperties(Object source, T target) {
         try {
-            // 获取源对象的所有字段,包括非 public 字段
-            Field[] fields = source.getClass().getDeclaredFields();
-            for (Field field : fields) {
-                field.setAccessible(true);
-                // 将字段值从源对象复制到目标对象
-                field.set(target, field.get(source));
+            // 逐级获取源对象的所有字段，包括父类中的与非 public 字段
+            for (Class<?> type = source.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    // 静态字段属于类而不是对象，无需复制
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    // 将字段值从源对象复制到目标对象
+                    field.set(target, field.get(source));
+                }
             }
         } catch (IllegalAccessException e) {
             throw new RuntimeException("bean属性拷贝失败", e);
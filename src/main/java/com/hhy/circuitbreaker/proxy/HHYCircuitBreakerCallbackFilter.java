@@ -0,0 +1,52 @@
+package com.hhy.circuitbreaker.proxy;
+
+import org.springframework.cglib.proxy.CallbackFilter;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * <p>
+ * 描述: 代理方法回调路由
+ * 下标 0 固定为 NoOp，未被熔断注解修饰的方法直接调用父类；
+ * 被修饰的方法路由到各自的拦截器
+ * </p>
+ *
+ * @Author hhy
+ */
+public class HHYCircuitBreakerCallbackFilter implements CallbackFilter {
+    /**
+     * 不拦截
+     */
+    public static final int PASS_THROUGH = 0;
+
+    /**
+     * 方法 -> 回调下标
+     */
+    private final Map<Method, Integer> callbackIndexes;
+
+    public HHYCircuitBreakerCallbackFilter(Map<Method, Integer> callbackIndexes) {
+        this.callbackIndexes = callbackIndexes;
+    }
+
+    @Override
+    public int accept(Method method) {
+        Integer index = callbackIndexes.get(method);
+        return index == null ? PASS_THROUGH : index;
+    }
+
+    /**
+     * Enhancer 以回调过滤器作为生成类的缓存键之一，相同路由必须相等，避免重复生成代理类
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HHYCircuitBreakerCallbackFilter)) return false;
+        return callbackIndexes.equals(((HHYCircuitBreakerCallbackFilter) o).callbackIndexes);
+    }
+
+    @Override
+    public int hashCode() {
+        return callbackIndexes.hashCode();
+    }
+}
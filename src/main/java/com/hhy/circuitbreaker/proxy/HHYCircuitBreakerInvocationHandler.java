@@ -0,0 +1,60 @@
+package com.hhy.circuitbreaker.proxy;
+
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * <p>
+ * 描述: 接口代理的调用处理器
+ * 被熔断注解修饰的方法交给各自的拦截器，其余方法直接调用原始对象
+ * </p>
+ *
+ * @Author hhy
+ */
+public class HHYCircuitBreakerInvocationHandler implements InvocationHandler {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Object target;
+
+    /**
+     * 接口方法 -> 拦截器
+     */
+    private final Map<Method, HHYCircuitBreakerMethodInterceptor> interceptors;
+
+    public HHYCircuitBreakerInvocationHandler(Object target, Map<Method, HHYCircuitBreakerMethodInterceptor> interceptors) {
+        this.target = target;
+        this.interceptors = interceptors;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        final HHYCircuitBreakerMethodInterceptor interceptor = interceptors.get(method);
+        if (interceptor != null) {
+            return interceptor.intercept(proxy, method, args == null ? NO_ARGS : args, null);
+        }
+        if (ReflectionUtils.isEqualsMethod(method)) {
+            // 与另一个代理比较时比较双方的原始对象，保证 equals 与 hashCode 一致
+            return target.equals(unwrap(args[0]));
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static Object unwrap(Object candidate) {
+        if (candidate != null && Proxy.isProxyClass(candidate.getClass())) {
+            final InvocationHandler handler = Proxy.getInvocationHandler(candidate);
+            if (handler instanceof HHYCircuitBreakerInvocationHandler) {
+                return ((HHYCircuitBreakerInvocationHandler) handler).target;
+            }
+        }
+        return candidate;
+    }
+}
@@ -1,40 +1,88 @@
 package com.hhy.circuitbreaker.proxy;
 
+import com.hhy.circuitbreaker.BulkheadFullException;
+import com.hhy.circuitbreaker.BulkheadType;
+import com.hhy.circuitbreaker.CallOutcomeClassifier;
+import com.hhy.circuitbreaker.CallResultType;
+import com.hhy.circuitbreaker.CallTimeoutException;
 import com.hhy.circuitbreaker.CircuitBreakerArbiter;
-import com.hhy.circuitbreaker.HHYCircuitBreaker;
+import com.hhy.circuitbreaker.CircuitBreakerBulkhead;
+import com.hhy.circuitbreaker.CircuitBreakerMethodDescriptor;
+import com.hhy.circuitbreaker.CircuitBreakerState;
+import com.hhy.circuitbreaker.CircuitState;
+import com.hhy.circuitbreaker.ConcurrencyLimitExceededException;
 import com.hhy.circuitbreaker.IHHYCircuitBreakerController;
 import com.hhy.circuitbreaker.MethodWrapper;
+import com.hhy.circuitbreaker.cache.IResultCache;
+import com.hhy.circuitbreaker.limit.IConcurrencyLimiter;
+import com.hhy.circuitbreaker.metrics.IMethodMetrics;
 import org.springframework.cglib.proxy.MethodInterceptor;
 import org.springframework.cglib.proxy.MethodProxy;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * <p>
  * 描述: 熔断对象方法拦截器
+ * 每个被熔断注解修饰的方法对应一个拦截器实例，由 {@link HHYCircuitBreakerCallbackFilter} 直接路由，
+ * 未被修饰的方法不会进入这里
  * </p>
  *
  * @Author hhy
  */
 public class HHYCircuitBreakerMethodInterceptor implements MethodInterceptor {
-    private Object object;
-    private Set<Integer> methodHashCode;
-    private Map<Integer, CircuitBreakerArbiter> arbiterMap;
-    private IHHYCircuitBreakerController hhyCircuitBreakerController;
+    private final CircuitBreakerMethodDescriptor descriptor;
+    private final IHHYCircuitBreakerController hhyCircuitBreakerController;
+
+    /**
+     * 超时调用线程池，只有配置了超时的方法会使用
+     */
+    private final ExecutorService callExecutor;
+
     /**
-     * 请求时间窗口
+     * 接口代理模式下绑定了原始对象、适配为 (Object[])Object 的原方法；子类代理模式下为 null
      */
-    private long windowRequestTime = Long.MIN_VALUE;
+    private final MethodHandle targetHandle;
 
-    public HHYCircuitBreakerMethodInterceptor(Object object, Set<Integer> methodHashCode, IHHYCircuitBreakerController hhyCircuitBreakerController) {
-        this.object = object;
-        this.methodHashCode = methodHashCode;
-        this.arbiterMap = new HashMap<>();
+    public HHYCircuitBreakerMethodInterceptor(CircuitBreakerMethodDescriptor descriptor, IHHYCircuitBreakerController hhyCircuitBreakerController,
+                                              ExecutorService callExecutor) {
+        this.descriptor = descriptor;
         this.hhyCircuitBreakerController = hhyCircuitBreakerController;
+        this.callExecutor = callExecutor;
+        this.targetHandle = null;
+    }
+
+    /**
+     * 接口代理使用：原方法直接在原始对象上调用
+     */
+    public HHYCircuitBreakerMethodInterceptor(CircuitBreakerMethodDescriptor descriptor, IHHYCircuitBreakerController hhyCircuitBreakerController,
+                                              ExecutorService callExecutor, Object target) {
+        this.descriptor = descriptor;
+        this.hhyCircuitBreakerController = hhyCircuitBreakerController;
+        this.callExecutor = callExecutor;
+        final Method method = descriptor.getMethod();
+        try {
+            method.setAccessible(true);
+            this.targetHandle = MethodHandles.lookup().unreflect(method)
+                    .bindTo(target)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问熔断方法: " + method, e);
+        }
     }
 
     /**
@@ -43,62 +91,343 @@ public class HHYCircuitBreakerMethodInterceptor implements MethodInterceptor {
      * @param o "this", 被增强的对象
      * @param method 被拦截的方法
      * @param objects 参数数组; primitive types are wrapped
-     * @param methodProxy 用来调用原始类中没有被代理的方法; 根据需要可能被调用多次
+     * @param methodProxy 用来调用原始类中没有被代理的方法; 根据需要可能被调用多次，接口代理模式下为 null
      * @return
      * @throws Throwable
      */
     @Override
     public Object intercept(Object o, Method method, Object[] objects, MethodProxy methodProxy) throws Throwable {
-        final int hashCode = method.hashCode();
-        if (!methodHashCode.contains(hashCode)) {
-            return methodProxy.invokeSuper(o, objects);
+        if (descriptor.getResultType().isReactive()) {
+            // 每次订阅是一次独立的调用：订阅时才判定熔断状态、获取试探许可并调用原方法，未订阅的返回值不占用许可
+            return ReactorSupport.defer(descriptor.getResultType(), () -> guard(o, objects, methodProxy));
         }
-        HHYCircuitBreaker hhyCircuitBreaker = method.getAnnotation(HHYCircuitBreaker.class);
+        return guard(o, objects, methodProxy);
+    }
 
-        if (hhyCircuitBreakerController.exist(hashCode)) {
-            final String callbackName = hhyCircuitBreaker.callback();
-            // 返回降级方法的调用结果
-            return this.object.getClass().getMethod(callbackName).invoke(object);
+    /**
+     * 判定熔断状态并执行一次调用
+     */
+    private Object guard(Object o, Object[] objects, MethodProxy methodProxy) throws Throwable {
+        final CircuitBreakerState state = descriptor.getState();
+        // 本次调用统计到的熔断器：方法级或所属分区
+        MethodWrapper breaker = descriptor.getMethodWrapper();
+        // 半开状态下试探请求所属的轮次，非试探请求为 NO_PERMIT
+        int trialRound = CircuitBreakerState.NO_PERMIT;
+        // 熔断关闭时只有这一次 volatile 读
+        if (!state.isClosed()) {
+            final CircuitState current = state.get();
+            if (current == CircuitState.DISABLED) {
+                // 停用时直接调用原方法，不统计
+                return proceed(o, objects, methodProxy);
+            }
+            if (current == CircuitState.HALF_OPEN) {
+                trialRound = state.tryAcquireTrialPermit();
+            }
+            if (trialRound == CircuitBreakerState.NO_PERMIT) {
+                descriptor.getMetrics().onShortCircuited();
+                // 返回降级方法的调用结果
+                return fallback(objects, descriptor.getOpenException());
+            }
+        } else if (descriptor.isPartitioned()) {
+            // 方法级关闭时再看所属分区，分区熔断只影响该分区的调用
+            breaker = descriptor.getPartition(objects);
+            final CircuitBreakerState partitionState = breaker.getState();
+            if (!partitionState.isClosed()) {
+                if (partitionState.get() == CircuitState.HALF_OPEN) {
+                    trialRound = partitionState.tryAcquireTrialPermit();
+                }
+                if (trialRound == CircuitBreakerState.NO_PERMIT) {
+                    descriptor.getMetrics().onShortCircuited();
+                    return fallback(objects, descriptor.getOpenException());
+                }
+            }
         }
-        // 记录
-        if (!arbiterMap.containsKey(hashCode)) {
-            // 每个方法一个熔断裁决器
-            arbiterMap.put(hashCode, new CircuitBreakerArbiter());
+        final MethodWrapper callBreaker = breaker;
+        final IConcurrencyLimiter limiter = descriptor.getConcurrencyLimiter();
+        if (limiter != null && !limiter.tryAcquire()) {
+            // 只舍弃超出自适应上限的调用，不计入失败率
+            if (trialRound != CircuitBreakerState.NO_PERMIT) {
+                breaker.getState().releaseTrialPermit(trialRound);
+            }
+            descriptor.getMetrics().onConcurrencyLimited();
+            return fallback(objects, new ConcurrencyLimitExceededException("并发超出自适应上限: " + descriptor.getMethod().getName()));
         }
 
-        boolean result = true;
         // 执行结果
-        Object returnVal = null;
+        final Object returnVal;
+        final long start = System.nanoTime();
         try {
-            returnVal = methodProxy.invokeSuper(o, objects);
-        } catch (Throwable e) {
-            result = false;
-        } finally {
-            CircuitBreakerArbiter arbiter = arbiterMap.get(hashCode);
-
-            final long windowSize = hhyCircuitBreaker.timeWindowSize();
-            TimeUnit timeunit = hhyCircuitBreaker.timeunit();
-            final long currentTime = System.currentTimeMillis();
-            if (currentTime > windowRequestTime){
-                // 窗口已过期，重置统计并更新窗口时间
-                windowRequestTime = timeunit.toMillis(windowSize) + currentTime;
-                arbiter.reset(); // 清空计数器
-            }
-            if (result) {
-                arbiter.incrSuccess();
+            returnVal = invoke(o, objects, methodProxy);
+        } catch (GuardRejection e) {
+            // 本方法自身的超时或舱壁拒绝；原方法（包括嵌套的熔断调用）抛出的同类异常不会走到这里，按分类器统计
+            if (e.timeout) {
+                descriptor.getMetrics().onTimeout();
             } else {
-                arbiter.incrFail();
+                descriptor.getMetrics().onBulkheadRejected();
+            }
+            onComplete(callBreaker, false, System.nanoTime() - start, trialRound);
+            return fallback(objects, e.getCause());
+        } catch (Throwable e) {
+            // 记为失败的异常走降级（未配置降级时原样抛出），其余异常原样抛给调用方
+            if (onOutcome(callBreaker, null, e, System.nanoTime() - start, trialRound) == CallOutcomeClassifier.Outcome.FAILURE) {
+                return fallback(objects, e);
+            }
+            throw e;
+        }
+
+        final CallResultType resultType = descriptor.getResultType();
+        final IResultCache resultCache = descriptor.getResultCache();
+        if (resultType == CallResultType.SYNC || returnVal == null) {
+            if (onOutcome(callBreaker, returnVal, null, System.nanoTime() - start, trialRound) == CallOutcomeClassifier.Outcome.SUCCESS
+                    && resultCache != null) {
+                resultCache.put(objects, returnVal);
             }
-            // 失败率达到阈值
-            if (!arbiter.isFailureRateTolerable(hhyCircuitBreaker.circuitBreakerThreshold())) {
-                // 注意传入原始对象，而不是被其他注解增强过的代理对象
-                // 如果此时仍然通过代理执行方法，就会：
-                // 再次进入拦截器逻辑；
-                // 可能再次触发熔断判断；
-                // 导致重复统计、无限循环、甚至堆栈溢出等问题
-                hhyCircuitBreakerController.trigger(new MethodWrapper(object, method, arbiter));
+            return returnVal;
+        }
+        // 异步返回值：在完成时统计，不阻塞调用线程
+        final int callTrialRound = trialRound;
+        if (resultType == CallResultType.COMPLETION_STAGE) {
+            ((CompletionStage<?>) returnVal).whenComplete((v, e) -> {
+                if (onOutcome(callBreaker, v, e, System.nanoTime() - start, callTrialRound) == CallOutcomeClassifier.Outcome.SUCCESS
+                        && e == null && resultCache != null) {
+                    resultCache.put(objects, v);
+                }
+            });
+            return returnVal;
+        }
+        return ReactorSupport.decorate(resultType, returnVal, new OutcomeRecorder() {
+            @Override
+            public void record(Object value, Throwable error, long durationNanos) {
+                if (resultType == CallResultType.FLUX && error == null) {
+                    // Flux 没有单一结果，正常完成即为成功
+                    onComplete(callBreaker, true, durationNanos, callTrialRound);
+                } else {
+                    onOutcome(callBreaker, value, error, durationNanos, callTrialRound);
+                }
             }
+
+            @Override
+            public void cancelled(long durationNanos) {
+                releaseUnrecorded(callBreaker, durationNanos, callTrialRound);
+            }
+        });
+    }
+
+    /**
+     * 按分类结果统计；不计入统计的试探请求归还许可
+     *
+     * @param breaker 本次调用所属的熔断器
+     * @return 分类结果
+     */
+    private CallOutcomeClassifier.Outcome onOutcome(MethodWrapper breaker, Object value, Throwable error, long duration, int trialRound) {
+        final CallOutcomeClassifier.Outcome outcome = descriptor.getClassifier().classify(value, error);
+        if (outcome == CallOutcomeClassifier.Outcome.IGNORED) {
+            releaseUnrecorded(breaker, duration, trialRound);
+        } else {
+            onComplete(breaker, outcome == CallOutcomeClassifier.Outcome.SUCCESS, duration, trialRound);
+        }
+        return outcome;
+    }
+
+    /**
+     * 调用结束但不计入统计（结果被忽略或订阅被取消）：归还试探许可与并发许可
+     */
+    private void releaseUnrecorded(MethodWrapper breaker, long duration, int trialRound) {
+        if (trialRound != CircuitBreakerState.NO_PERMIT) {
+            breaker.getState().releaseTrialPermit(trialRound);
+        }
+        final IConcurrencyLimiter limiter = descriptor.getConcurrencyLimiter();
+        if (limiter != null) {
+            limiter.release(duration, false);
+        }
+    }
+
+    /**
+     * 统计一次调用结果，并据此判断是否熔断
+     *
+     * @param breaker 本次调用所属的熔断器
+     * @param result 是否成功
+     * @param duration 调用耗时（纳秒）
+     * @param trialRound 试探请求所属的半开轮次，非试探请求为 NO_PERMIT
+     */
+    private void onComplete(MethodWrapper breaker, boolean result, long duration, int trialRound) {
+        final IMethodMetrics metrics = descriptor.getMetrics();
+        final boolean slow = descriptor.isSlowCall(duration);
+        if (result) {
+            metrics.onSuccess(duration);
+        } else {
+            metrics.onFailure(duration);
+        }
+        if (slow) {
+            metrics.onSlowCall();
+        }
+        final IConcurrencyLimiter limiter = descriptor.getConcurrencyLimiter();
+        if (limiter != null) {
+            limiter.release(duration, !result);
+        }
+        // 注意交给控制器的是原始对象的包装，而不是被其他注解增强过的代理对象
+        if (trialRound != CircuitBreakerState.NO_PERMIT) {
+            // 试探成功则累计，失败或过慢立即重新熔断；已结束的轮次的迟到结果直接丢弃
+            if (result && !slow) {
+                hhyCircuitBreakerController.onTrialSuccess(breaker, trialRound);
+            } else if (breaker.getState().isHalfOpenRound(trialRound)) {
+                hhyCircuitBreakerController.trigger(breaker);
+            }
+            return;
+        }
+        CircuitBreakerArbiter arbiter = breaker.getRequestRate();
+        arbiter.record(result, slow);
+        // 失败率或慢调用比例达到阈值
+        if (arbiter.isTripped(slow)) {
+            hhyCircuitBreakerController.trigger(breaker);
+        }
+    }
+
+    /**
+     * 调用降级方法，异步方法的降级结果包装成与返回值相同的类型
+     * 开启了结果缓存时优先返回相同参数最近一次成功的结果；既没有缓存也没有降级方法时抛出 cause
+     */
+    private Object fallback(Object[] objects, Throwable cause) throws Throwable {
+        final CallResultType resultType = descriptor.getResultType();
+        final IResultCache resultCache = descriptor.getResultCache();
+        if (resultCache != null) {
+            final Object cached = resultCache.get(objects);
+            if (cached != null) {
+                descriptor.getMetrics().onCacheHit();
+                return resultType == CallResultType.COMPLETION_STAGE ? CompletableFuture.completedFuture(cached) : cached;
+            }
+        }
+        if (resultType == CallResultType.SYNC) {
+            if (!descriptor.hasFallback()) {
+                throw cause;
+            }
+            descriptor.getMetrics().onFallback();
+            return descriptor.invokeFallback(objects, cause);
+        }
+        final Object value;
+        try {
+            if (!descriptor.hasFallback()) {
+                throw cause;
+            }
+            descriptor.getMetrics().onFallback();
+            value = descriptor.invokeFallback(objects, cause);
+        } catch (Throwable e) {
+            if (resultType == CallResultType.COMPLETION_STAGE) {
+                CompletableFuture<Object> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+            return ReactorSupport.error(resultType, e);
+        }
+        if (resultType == CallResultType.COMPLETION_STAGE) {
+            return value instanceof CompletionStage ? value : CompletableFuture.completedFuture(value);
+        }
+        return ReactorSupport.adapt(resultType, value);
+    }
+
+    /**
+     * 按舱壁与超时配置执行原方法，本方法自身的超时与舱壁拒绝以 {@link GuardRejection} 抛出
+     */
+    private Object invoke(Object o, Object[] objects, MethodProxy methodProxy) throws Throwable {
+        final CircuitBreakerBulkhead bulkhead = descriptor.getBulkhead();
+        if (bulkhead == null) {
+            return descriptor.getTimeoutNanos() > 0 ? invokeAsync(callExecutor, null, o, objects, methodProxy) : proceed(o, objects, methodProxy);
+        }
+        if (bulkhead.getType() == BulkheadType.THREAD_POOL) {
+            return invokeAsync(bulkhead.getExecutor(), null, o, objects, methodProxy);
+        }
+        if (!bulkhead.tryAcquire()) {
+            throw new GuardRejection(false, new BulkheadFullException("舱壁并发已满: " + descriptor.getMethod().getName()));
+        }
+        if (descriptor.getTimeoutNanos() > 0) {
+            // 超时后执行线程可能仍在运行，许可由执行结束的一方归还
+            return invokeAsync(callExecutor, bulkhead, o, objects, methodProxy);
+        }
+        try {
+            return proceed(o, objects, methodProxy);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * 调用原方法：子类代理调用父类方法，接口代理调用原始对象
+     */
+    private Object proceed(Object o, Object[] objects, MethodProxy methodProxy) throws Throwable {
+        return methodProxy != null ? methodProxy.invokeSuper(o, objects) : (Object) targetHandle.invokeExact(objects);
+    }
+
+    /**
+     * 在线程池中执行原方法；配置了超时则最多等待超时时间，超时后中断执行线程。
+     * 等待超时与线程池拒绝以 {@link GuardRejection} 抛出，原方法自己的异常原样抛出
+     *
+     * @param bulkhead 已获取许可的信号量舱壁，原方法执行结束时才归还；任务尚未开始就被放弃时由调用线程归还。可为 null
+     */
+    private Object invokeAsync(ExecutorService executor, CircuitBreakerBulkhead bulkhead, Object o, Object[] objects, MethodProxy methodProxy) throws Throwable {
+        // 任务开始执行与调用线程放弃任务只有一方能成功，成功的一方负责归还舱壁许可
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final Future<Object> future;
+        try {
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return proceed(o, objects, methodProxy);
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new UndeclaredThrowableException(t);
+                } finally {
+                    if (bulkhead != null) {
+                        bulkhead.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+            final String pool = executor == callExecutor ? "超时调用线程池已满: " : "舱壁线程池已满: ";
+            throw new GuardRejection(false, new BulkheadFullException(pool + descriptor.getMethod().getName()));
+        }
+        try {
+            final long timeoutNanos = descriptor.getTimeoutNanos();
+            return timeoutNanos > 0 ? future.get(timeoutNanos, TimeUnit.NANOSECONDS) : future.get();
+        } catch (TimeoutException e) {
+            abandon(future, claimed, bulkhead);
+            throw new GuardRejection(true, new CallTimeoutException("调用超时: " + descriptor.getMethod().getName()));
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            abandon(future, claimed, bulkhead);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * 放弃等待并中断任务；任务尚未开始时由调用线程归还舱壁许可
+     */
+    private static void abandon(Future<Object> future, AtomicBoolean claimed, CircuitBreakerBulkhead bulkhead) {
+        if (claimed.compareAndSet(false, true) && bulkhead != null) {
+            bulkhead.release();
+        }
+        future.cancel(true);
+    }
+
+    /**
+     * 本方法自身的超时或拒绝，只在 {@link #invoke} 中产生并在 {@link #intercept} 中处理，不会抛给调用方
+     */
+    private static final class GuardRejection extends Exception {
+        /**
+         * 是否为等待超时，否则为舱壁或线程池拒绝
+         */
+        private final boolean timeout;
+
+        private GuardRejection(boolean timeout, RuntimeException cause) {
+            super(cause.getMessage(), cause, false, false);
+            this.timeout = timeout;
         }
-        return returnVal;
     }
 }
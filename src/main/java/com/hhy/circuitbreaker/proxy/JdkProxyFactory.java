@@ -0,0 +1,72 @@
+package com.hhy.circuitbreaker.proxy;
+
+import com.hhy.circuitbreaker.CircuitBreakerMethodDescriptor;
+import com.hhy.circuitbreaker.IHHYCircuitBreakerController;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * <p>
+ * 描述: 接口代理工厂，代理把调用委托给原始对象
+ * </p>
+ *
+ * @Author hhy
+ */
+public class JdkProxyFactory {
+    /**
+     * 接口代理能够拦截到的原始对象方法，即实现了某个接口方法的方法
+     *
+     * @return 原始对象没有实现任何接口时返回 null
+     */
+    public static Set<Method> getInterfaceMethods(Class<?> targetClass) {
+        final Class<?>[] interfaces = ClassUtils.getAllInterfacesForClass(targetClass);
+        if (interfaces.length == 0) {
+            return null;
+        }
+        final Set<Method> methods = new HashSet<>();
+        for (Class<?> anInterface : interfaces) {
+            for (Method interfaceMethod : anInterface.getMethods()) {
+                methods.add(ClassUtils.getMostSpecificMethod(interfaceMethod, targetClass));
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * @param descriptors 只应包含 {@link #getInterfaceMethods(Class)} 中的方法，其余方法不会被拦截
+     * @return 代理对象；原始对象没有实现任何接口时返回 null
+     */
+    public static Object getProxy(Object bean, List<CircuitBreakerMethodDescriptor> descriptors, IHHYCircuitBreakerController hhyCircuitBreakerController,
+                                  ExecutorService callExecutor) {
+        final Class<?> targetClass = bean.getClass();
+        final Class<?>[] interfaces = ClassUtils.getAllInterfacesForClass(targetClass);
+        if (interfaces.length == 0) {
+            return null;
+        }
+        final Map<Method, HHYCircuitBreakerMethodInterceptor> interceptorsByTargetMethod = new HashMap<>();
+        for (CircuitBreakerMethodDescriptor descriptor : descriptors) {
+            interceptorsByTargetMethod.put(descriptor.getMethod(),
+                    new HHYCircuitBreakerMethodInterceptor(descriptor, hhyCircuitBreakerController, callExecutor, bean));
+        }
+        // 接口方法 -> 拦截器，调用时按接口方法直接查找
+        final Map<Method, HHYCircuitBreakerMethodInterceptor> interceptors = new HashMap<>();
+        for (Class<?> anInterface : interfaces) {
+            for (Method interfaceMethod : anInterface.getMethods()) {
+                final HHYCircuitBreakerMethodInterceptor interceptor =
+                        interceptorsByTargetMethod.get(ClassUtils.getMostSpecificMethod(interfaceMethod, targetClass));
+                if (interceptor != null) {
+                    interceptors.put(interfaceMethod, interceptor);
+                }
+            }
+        }
+        return Proxy.newProxyInstance(targetClass.getClassLoader(), interfaces, new HHYCircuitBreakerInvocationHandler(bean, interceptors));
+    }
+}
@@ -0,0 +1,23 @@
+package com.hhy.circuitbreaker.proxy;
+
+/**
+ * <p>
+ * 描述: 异步调用完成或被取消时的结果回调
+ * </p>
+ *
+ * @Author hhy
+ */
+interface OutcomeRecorder {
+    /**
+     * @param value 完成时的值，Flux 为 null
+     * @param error 异常，正常完成时为 null
+     * @param durationNanos 调用耗时（纳秒）
+     */
+    void record(Object value, Throwable error, long durationNanos);
+
+    /**
+     * 订阅在完成前被取消（dispose、下游 take(n)、上游 timeout 等），不计入统计，只归还占用的许可
+     * @param durationNanos 从订阅到取消的耗时（纳秒）
+     */
+    void cancelled(long durationNanos);
+}
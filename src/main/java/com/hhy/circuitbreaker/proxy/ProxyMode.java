@@ -0,0 +1,21 @@
+package com.hhy.circuitbreaker.proxy;
+
+/**
+ * <p>
+ * 描述: 熔断代理的生成方式
+ * </p>
+ *
+ * @Author hhy
+ */
+public enum ProxyMode {
+    /**
+     * CGLIB 子类代理：运行时生成子类并复制原始对象的字段，注入点可以使用具体类型
+     */
+    SUBCLASS,
+
+    /**
+     * JDK 接口代理：代理实现原始对象的全部接口，调用委托给原始对象，不生成子类、不复制字段；
+     * 注入点必须使用接口类型，只有接口中声明的方法会被熔断。没有实现任何接口的 Bean 仍使用子类代理
+     */
+    INTERFACE
+}
@@ -0,0 +1,103 @@
+package com.hhy.circuitbreaker.proxy;
+
+import com.hhy.circuitbreaker.CallResultType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * 描述: Reactor 返回值适配，只有方法返回 Mono/Flux 时才会加载此类
+ * </p>
+ *
+ * @Author hhy
+ */
+final class ReactorSupport {
+    private ReactorSupport() {
+    }
+
+    /**
+     * 把一次受保护的调用推迟到订阅时执行，每次订阅执行一次；同步抛出的异常转为错误信号
+     */
+    static Object defer(CallResultType type, GuardedCall call) {
+        if (type == CallResultType.MONO) {
+            return Mono.defer(() -> (Mono<?>) invoke(call, type));
+        }
+        return Flux.defer(() -> (Flux<?>) invoke(call, type));
+    }
+
+    private static Object invoke(GuardedCall call, CallResultType type) {
+        try {
+            final Object result = call.call();
+            return result != null ? result : adapt(type, null);
+        } catch (Throwable e) {
+            return error(type, e);
+        }
+    }
+
+    /**
+     * 在订阅结束时统计结果，耗时从装饰时（即订阅时）开始计算；
+     * 取消订阅不计入统计，但会回调 {@link OutcomeRecorder#cancelled(long)} 归还许可。
+     * 每次拦截只装饰一次，无论收到多少次终止信号都只回调一次
+     */
+    static Object decorate(CallResultType type, Object publisher, OutcomeRecorder recorder) {
+        final long start = System.nanoTime();
+        final AtomicBoolean done = new AtomicBoolean();
+        if (type == CallResultType.MONO) {
+            return ((Mono<?>) publisher)
+                    .doOnSuccess(v -> {
+                        if (done.compareAndSet(false, true)) {
+                            recorder.record(v, null, System.nanoTime() - start);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (done.compareAndSet(false, true)) {
+                            recorder.record(null, e, System.nanoTime() - start);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (done.compareAndSet(false, true)) {
+                            recorder.cancelled(System.nanoTime() - start);
+                        }
+                    });
+        }
+        return ((Flux<?>) publisher)
+                .doOnComplete(() -> {
+                    if (done.compareAndSet(false, true)) {
+                        recorder.record(null, null, System.nanoTime() - start);
+                    }
+                })
+                .doOnError(e -> {
+                    if (done.compareAndSet(false, true)) {
+                        recorder.record(null, e, System.nanoTime() - start);
+                    }
+                })
+                .doOnCancel(() -> {
+                    if (done.compareAndSet(false, true)) {
+                        recorder.cancelled(System.nanoTime() - start);
+                    }
+                });
+    }
+
+    /**
+     * 把降级结果包装成与方法返回值相同的类型
+     */
+    static Object adapt(CallResultType type, Object value) {
+        if (type == CallResultType.MONO) {
+            return value instanceof Mono ? value : Mono.justOrEmpty(value);
+        }
+        return value instanceof Flux ? value : (value == null ? Flux.empty() : Flux.just(value));
+    }
+
+    static Object error(CallResultType type, Throwable error) {
+        return type == CallResultType.MONO ? Mono.error(error) : Flux.error(error);
+    }
+
+    /**
+     * 受熔断保护的一次调用
+     */
+    interface GuardedCall {
+        Object call() throws Throwable;
+    }
+}
@@ -0,0 +1,258 @@
+package com.hhy.circuitbreaker.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * <p>
+ * 描述: 基于时间轮的熔断恢复定时器
+ * 新任务先进入无锁队列，由时间轮线程在每个刻度批量放入对应槽位，插入与取消均为 O(1)；
+ * 到期任务交给外部线程池执行，线程池拒绝时留到下一个刻度重新投递，任务不会丢失
+ * </p>
+ *
+ * @Author hhy
+ */
+public class HashedWheelTimerScheduler implements IBreakerScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimerScheduler.class);
+
+    /**
+     * 到期任务的执行线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 每个刻度的时长（纳秒）
+     */
+    private final long tickNanos;
+
+    /**
+     * 时间轮槽位，长度为 2 的幂
+     */
+    private final Bucket[] wheel;
+
+    private final int mask;
+
+    /**
+     * 待放入时间轮的新任务
+     */
+    private final Queue<WheelTimeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final long startTime;
+
+    private final Thread workerThread;
+
+    private volatile boolean running = true;
+
+    /**
+     * 当前刻度，只由时间轮线程读写
+     */
+    private long tick;
+
+    public HashedWheelTimerScheduler(Executor executor, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("刻度时长必须大于0: " + tickDuration);
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("槽位数量不合法: " + ticksPerWheel);
+        }
+        this.executor = executor;
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[Math.max(1, size)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        this.startTime = System.nanoTime();
+        this.workerThread = new Thread(this::work, "circuit-wheel-timer");
+        this.workerThread.setDaemon(true);
+        this.workerThread.start();
+        logger.info("熔断时间轮已启动，刻度: {} ms, 槽位数: {}", unit.toMillis(tickDuration), wheel.length);
+    }
+
+    @Override
+    public Handle schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("熔断时间轮已停止");
+        }
+        WheelTimeout timeout = new WheelTimeout(task, System.nanoTime() - startTime + unit.toNanos(Math.max(0, delay)));
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    @Override
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        workerThread.interrupt();
+        logger.info("熔断时间轮已停止");
+    }
+
+    private void work() {
+        while (running) {
+            final long deadline = waitForNextTick();
+            if (!running) {
+                break;
+            }
+            transferPendingTimeouts();
+            wheel[(int) (tick & mask)].expireTimeouts(deadline);
+            tick++;
+        }
+    }
+
+    /**
+     * 把新任务放入对应槽位，已取消的直接丢弃
+     */
+    private void transferPendingTimeouts() {
+        WheelTimeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // 已经过期的任务放到当前槽位，本刻度即执行
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private long waitForNextTick() {
+        final long deadline = tickNanos * (tick + 1);
+        while (true) {
+            final long current = System.nanoTime() - startTime;
+            long sleepMillis = (deadline - current + 999_999) / 1_000_000;
+            if (sleepMillis <= 0) {
+                return current;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return current;
+                }
+            }
+        }
+    }
+
+    private void dispatch(WheelTimeout timeout) {
+        try {
+            executor.execute(timeout.task);
+        } catch (RejectedExecutionException e) {
+            // 线程池繁忙时留到下一个刻度重新投递
+            logger.debug("熔断恢复任务被线程池拒绝，下一刻度重试");
+            timeout.redeliver = true;
+            timeout.remainingRounds = 0;
+            pendingTimeouts.add(timeout);
+        }
+    }
+
+    private static final class WheelTimeout implements Handle {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(WheelTimeout.class, "state");
+
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = ST_INIT;
+
+        /**
+         * 以下字段只由时间轮线程访问
+         */
+        private long remainingRounds;
+        private boolean redeliver;
+        private WheelTimeout next;
+        private WheelTimeout prev;
+
+        private WheelTimeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            // 只打标记，由时间轮线程在经过槽位时移除
+            return STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        private boolean expire() {
+            return STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED);
+        }
+    }
+
+    /**
+     * 槽位：双向链表，只由时间轮线程访问
+     */
+    private final class Bucket {
+        private WheelTimeout head;
+        private WheelTimeout tail;
+
+        private void add(WheelTimeout timeout) {
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void expireTimeouts(long deadline) {
+            WheelTimeout timeout = head;
+            while (timeout != null) {
+                WheelTimeout next = timeout.next;
+                if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= deadline) {
+                        // 被拒绝后重新投递的任务已经是到期状态
+                        if (timeout.redeliver || timeout.expire()) {
+                            dispatch(timeout);
+                        }
+                    } else {
+                        // 理论上不会出现，放回待处理队列重新计算槽位
+                        pendingTimeouts.add(timeout);
+                    }
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(WheelTimeout timeout) {
+            WheelTimeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.hhy.circuitbreaker.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 描述: 熔断恢复定时器接口，可替换为自定义实现
+ * </p>
+ *
+ * @Author hhy
+ */
+public interface IBreakerScheduler {
+
+    /**
+     * 延时执行任务
+     * @param task 到期后执行的任务
+     * @param delay 延时
+     * @param unit 延时单位
+     * @return 可用于取消的句柄
+     */
+    Handle schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * 停止定时器，未到期的任务不再执行；由熔断控制器关闭时调用，可重复调用。
+     * 停止后再安排任务应抛出 IllegalStateException
+     */
+    void shutdown();
+
+    /**
+     * 定时任务句柄
+     */
+    interface Handle {
+        /**
+         * 取消尚未执行的任务
+         * @return 是否由本次调用取消成功
+         */
+        boolean cancel();
+
+        boolean isCancelled();
+    }
+}
@@ -0,0 +1,214 @@
+package com.hhy.circuitbreaker.snapshot;
+
+import com.hhy.circuitbreaker.CircuitBreakerArbiter;
+import com.hhy.circuitbreaker.CircuitState;
+import com.hhy.circuitbreaker.MethodWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * 描述: 基于内存映射文件的熔断状态快照，用于重启后快速恢复
+ * 文件为定长布局：64 字节文件头 + 每个方法一个定长槽位，槽位下标即方法编号。
+ * 写入只是对映射内存的几次 put，落盘交给操作系统；恢复时整块复制后按方法标识的哈希定位槽位，无需解析。
+ * 文件头中的序号在写入期间为奇数，进程在写入中途退出留下的快照会被丢弃
+ * </p>
+ *
+ * @Author hhy
+ */
+public class MappedBreakerSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(MappedBreakerSnapshot.class);
+
+    /**
+     * 文件魔数 "HHYS"
+     */
+    private static final int MAGIC = 0x48485953;
+
+    private static final int VERSION = 1;
+
+    /**
+     * 文件头：魔数(4) 版本(4) 槽位数(4) 槽位大小(4) 序号(8) 写入时间戳(8)，其余保留
+     */
+    private static final int HEADER_SIZE = 64;
+    private static final int OFFSET_SEQUENCE = 16;
+    private static final int OFFSET_WRITTEN_AT = 24;
+
+    /**
+     * 槽位：方法标识哈希(8) 状态(4) 已重试次数(4) 熔断等待期结束时间戳(8) 子桶数(4) 保留(4) + 子桶
+     */
+    private static final int SLOT_HEADER_SIZE = 32;
+
+    /**
+     * 槽位最多容纳的子桶数
+     */
+    private static final int MAX_BUCKETS = 15;
+
+    private static final int SLOT_SIZE = SLOT_HEADER_SIZE + MAX_BUCKETS * CircuitBreakerArbiter.SNAPSHOT_BUCKET_BYTES;
+
+    private static final CircuitState[] STATES = CircuitState.values();
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final int maxMethods;
+
+    /**
+     * 上次运行留下的快照，方法标识哈希 -> 槽位偏移；没有可用快照时为空
+     */
+    private final Map<Long, Integer> restorable = new HashMap<>();
+
+    private final ByteBuffer previous;
+
+    /**
+     * @param file 快照文件
+     * @param maxMethods 最多记录的方法数，决定文件大小
+     * @param maxAgeMillis 超过这个时长的快照视为过期，不再恢复
+     */
+    public MappedBreakerSnapshot(File file, int maxMethods, long maxAgeMillis) {
+        this.maxMethods = maxMethods;
+        final long size = HEADER_SIZE + (long) maxMethods * SLOT_SIZE;
+        try {
+            final File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                throw new IOException("无法创建目录: " + parent);
+            }
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开熔断快照文件失败: " + file, e);
+        }
+        this.previous = load(maxAgeMillis);
+        if (previous != null) {
+            logger.info("已加载熔断快照 {}，可恢复 {} 个方法", file, restorable.size());
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, maxMethods);
+        buffer.putInt(12, SLOT_SIZE);
+    }
+
+    /**
+     * 复制上次运行留下的快照，校验不通过或已过期时返回 null
+     */
+    private ByteBuffer load(long maxAgeMillis) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(12) != SLOT_SIZE) {
+            return null;
+        }
+        final long sequence = buffer.getLong(OFFSET_SEQUENCE);
+        final long writtenAt = buffer.getLong(OFFSET_WRITTEN_AT);
+        if ((sequence & 1) != 0) {
+            logger.warn("熔断快照在写入中途中断，丢弃");
+            return null;
+        }
+        final long age = System.currentTimeMillis() - writtenAt;
+        if (age < 0 || age > maxAgeMillis) {
+            logger.info("熔断快照已过期（{} ms），丢弃", age);
+            return null;
+        }
+        final int slots = Math.min(buffer.getInt(8), maxMethods);
+        final ByteBuffer copy = ByteBuffer.allocate(HEADER_SIZE + slots * SLOT_SIZE);
+        final ByteBuffer source = buffer.duplicate();
+        source.position(0).limit(copy.capacity());
+        copy.put(source);
+        for (int i = 0; i < slots; i++) {
+            final int offset = HEADER_SIZE + i * SLOT_SIZE;
+            final long keyHash = copy.getLong(offset);
+            if (keyHash != 0) {
+                restorable.put(keyHash, offset);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * 恢复单个方法的状态与窗口
+     *
+     * @return 快照中记录的状态，没有记录时返回 null
+     */
+    public CircuitState restore(MethodWrapper methodWrapper) {
+        final Integer offset = restorable.remove(hash(methodWrapper.getKey()));
+        if (offset == null) {
+            return null;
+        }
+        final int stateOrdinal = previous.getInt(offset + 8);
+        if (stateOrdinal < 0 || stateOrdinal >= STATES.length) {
+            return null;
+        }
+        methodWrapper.setRetriedCount(previous.getInt(offset + 12));
+        methodWrapper.setExpire(previous.getLong(offset + 16));
+        final int bucketCount = previous.getInt(offset + 24);
+        final CircuitBreakerArbiter arbiter = methodWrapper.getRequestRate();
+        if (bucketCount == arbiter.getBucketCount()) {
+            final ByteBuffer buckets = previous.duplicate();
+            buckets.position(offset + SLOT_HEADER_SIZE);
+            arbiter.readSnapshot(buckets);
+        }
+        return STATES[stateOrdinal];
+    }
+
+    /**
+     * 写入所有方法的当前状态
+     *
+     * @param registry 已注册的熔断方法，下标即方法编号
+     */
+    public synchronized void write(MethodWrapper[] registry) {
+        final long sequence = buffer.getLong(OFFSET_SEQUENCE);
+        buffer.putLong(OFFSET_SEQUENCE, sequence | 1);
+        final int count = Math.min(registry.length, maxMethods);
+        for (int i = 0; i < count; i++) {
+            final MethodWrapper methodWrapper = registry[i];
+            final int offset = HEADER_SIZE + i * SLOT_SIZE;
+            buffer.putLong(offset, hash(methodWrapper.getKey()));
+            buffer.putInt(offset + 8, methodWrapper.getState().get().ordinal());
+            buffer.putInt(offset + 12, methodWrapper.getRetriedCount());
+            buffer.putLong(offset + 16, methodWrapper.getExpire());
+            final CircuitBreakerArbiter arbiter = methodWrapper.getRequestRate();
+            if (arbiter.getBucketCount() <= MAX_BUCKETS) {
+                buffer.putInt(offset + 24, arbiter.getBucketCount());
+                final ByteBuffer buckets = buffer.duplicate();
+                buckets.position(offset + SLOT_HEADER_SIZE);
+                arbiter.writeSnapshot(buckets);
+            } else {
+                buffer.putInt(offset + 24, 0);
+            }
+        }
+        // 清掉本次运行未使用的旧槽位
+        for (int i = count; i < maxMethods && buffer.getLong(HEADER_SIZE + i * SLOT_SIZE) != 0; i++) {
+            buffer.putLong(HEADER_SIZE + i * SLOT_SIZE, 0);
+        }
+        buffer.putLong(OFFSET_WRITTEN_AT, System.currentTimeMillis());
+        buffer.putLong(OFFSET_SEQUENCE, (sequence | 1) + 1);
+    }
+
+    public void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("关闭熔断快照文件失败", e);
+        }
+    }
+
+    /**
+     * 64 位 FNV-1a，0 保留为空槽位
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,131 @@
+package com.hhy.circuitbreaker.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * 描述: 批量发布的状态共享基类
+ * 发布只是入队，由发布线程每隔一个刷新周期取出全部事件，同一方法只保留最新的一条，合并成一批发送
+ * </p>
+ *
+ * @Author hhy
+ */
+public abstract class AbstractBatchingStateStore implements IBreakerStateStore {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractBatchingStateStore.class);
+
+    /**
+     * 本实例的标识，用于丢弃自己发布的事件
+     */
+    protected final long origin = ThreadLocalRandom.current().nextLong();
+
+    /**
+     * 待发布的事件
+     */
+    private final ConcurrentLinkedQueue<BreakerStateEvent> pending = new ConcurrentLinkedQueue<>();
+
+    private final List<Consumer<BreakerStateEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 刷新周期（纳秒）
+     */
+    private final long flushIntervalNanos;
+
+    private final Thread publisherThread;
+
+    protected volatile boolean running = true;
+
+    protected AbstractBatchingStateStore(long flushInterval, TimeUnit unit, String threadName) {
+        this.flushIntervalNanos = Math.max(1L, unit.toNanos(flushInterval));
+        this.publisherThread = new Thread(this::publishLoop, threadName);
+        this.publisherThread.setDaemon(true);
+    }
+
+    /**
+     * 子类初始化完成后启动发布线程
+     */
+    protected void start() {
+        publisherThread.start();
+    }
+
+    @Override
+    public void publish(BreakerStateEvent event) {
+        if (running) {
+            pending.offer(event);
+            LockSupport.unpark(publisherThread);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<BreakerStateEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        publisherThread.interrupt();
+    }
+
+    /**
+     * 发送一批事件
+     * @param origin 发布者标识
+     * @param events 同一方法只有一条
+     */
+    protected abstract void send(long origin, Collection<BreakerStateEvent> events) throws Exception;
+
+    /**
+     * 收到一批事件，丢弃本实例发布的，其余交给订阅者
+     */
+    protected void deliver(long origin, Collection<BreakerStateEvent> events) {
+        if (origin == this.origin) {
+            return;
+        }
+        for (BreakerStateEvent event : events) {
+            for (Consumer<BreakerStateEvent> listener : listeners) {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    logger.warn("处理熔断状态事件失败: {}", event, e);
+                }
+            }
+        }
+    }
+
+    private void publishLoop() {
+        final Map<String, BreakerStateEvent> batch = new LinkedHashMap<>();
+        while (running) {
+            if (pending.isEmpty()) {
+                LockSupport.park(this);
+            }
+            // 攒一个刷新周期，把短时间内的多次迁移合并成一批
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            BreakerStateEvent event;
+            while ((event = pending.poll()) != null) {
+                batch.remove(event.getKey());
+                batch.put(event.getKey(), event);
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                send(origin, new ArrayList<>(batch.values()));
+            } catch (Exception e) {
+                logger.warn("发布熔断状态失败，丢弃 {} 条事件", batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.hhy.circuitbreaker.store;
+
+import com.hhy.circuitbreaker.CircuitState;
+
+/**
+ * <p>
+ * 描述: 熔断状态迁移事件
+ * </p>
+ *
+ * @Author hhy
+ */
+public final class BreakerStateEvent {
+    /**
+     * 熔断方法在集群内的唯一标识，见 {@link com.hhy.circuitbreaker.MethodWrapper#getKey()}
+     */
+    private final String key;
+
+    /**
+     * 迁移后的状态
+     */
+    private final CircuitState state;
+
+    /**
+     * 发布时剩余的熔断等待时长（毫秒），只对 OPEN 有意义。
+     * 使用相对时长而不是时间戳，接收方不受各实例之间时钟偏差的影响
+     */
+    private final long openMillis;
+
+    public BreakerStateEvent(String key, CircuitState state, long openMillis) {
+        this.key = key;
+        this.state = state;
+        this.openMillis = openMillis;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public CircuitState getState() {
+        return state;
+    }
+
+    public long getOpenMillis() {
+        return openMillis;
+    }
+
+    @Override
+    public String toString() {
+        return key + " -> " + state + " (" + openMillis + " ms)";
+    }
+}
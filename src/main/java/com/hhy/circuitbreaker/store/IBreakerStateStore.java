@@ -0,0 +1,48 @@
+package com.hhy.circuitbreaker.store;
+
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * 描述: 熔断状态共享接口，可替换为自定义实现
+ * 熔断控制器把本实例的状态迁移发布出去，同时订阅其他实例的状态迁移，
+ * 使同一个下游故障只需被集群中的一个实例发现
+ * </p>
+ *
+ * @Author hhy
+ */
+public interface IBreakerStateStore {
+    /**
+     * 不共享状态
+     */
+    IBreakerStateStore NOOP = new IBreakerStateStore() {
+        @Override
+        public void publish(BreakerStateEvent event) {
+        }
+
+        @Override
+        public void subscribe(Consumer<BreakerStateEvent> listener) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    };
+
+    /**
+     * 发布本实例的状态迁移，不阻塞调用线程
+     * @param event 状态迁移事件
+     */
+    void publish(BreakerStateEvent event);
+
+    /**
+     * 订阅其他实例的状态迁移，本实例发布的事件不会回传
+     * @param listener 在接收线程上回调
+     */
+    void subscribe(Consumer<BreakerStateEvent> listener);
+
+    /**
+     * 停止发布与接收
+     */
+    void shutdown();
+}
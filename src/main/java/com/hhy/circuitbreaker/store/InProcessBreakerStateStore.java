@@ -0,0 +1,38 @@
+package com.hhy.circuitbreaker.store;
+
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 描述: 进程内状态共享，同一 JVM 中的多个 Spring 上下文之间共享熔断状态
+ * </p>
+ *
+ * @Author hhy
+ */
+public class InProcessBreakerStateStore extends AbstractBatchingStateStore {
+    /**
+     * 同一 JVM 中所有存活的实例
+     */
+    private static final Collection<InProcessBreakerStateStore> STORES = new CopyOnWriteArrayList<>();
+
+    public InProcessBreakerStateStore(long flushInterval, TimeUnit unit) {
+        super(flushInterval, unit, "circuit-state-publisher");
+        STORES.add(this);
+        start();
+    }
+
+    @Override
+    protected void send(long origin, Collection<BreakerStateEvent> events) {
+        for (InProcessBreakerStateStore store : STORES) {
+            store.deliver(origin, events);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        STORES.remove(this);
+        super.shutdown();
+    }
+}
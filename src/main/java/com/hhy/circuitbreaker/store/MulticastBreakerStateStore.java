@@ -0,0 +1,163 @@
+package com.hhy.circuitbreaker.store;
+
+import com.hhy.circuitbreaker.CircuitState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 描述: 基于 UDP 组播的状态共享，同一网段（或同一台机器）上的多个 JVM 之间共享熔断状态
+ * 一批事件编码为一个数据报，超过单包大小时拆成多个；组播不保证送达，丢失的事件由各实例自己的统计兜底
+ * </p>
+ *
+ * @Author hhy
+ */
+public class MulticastBreakerStateStore extends AbstractBatchingStateStore {
+    private static final Logger logger = LoggerFactory.getLogger(MulticastBreakerStateStore.class);
+
+    /**
+     * 报文魔数 "HHYC"
+     */
+    private static final int MAGIC = 0x48485943;
+
+    /**
+     * 报文版本，第 2 版起事件携带剩余等待时长而不是时间戳，与旧版本互不识别
+     */
+    private static final byte VERSION = 2;
+
+    /**
+     * 单个数据报的最大长度，避免 IP 分片
+     */
+    private static final int MAX_PACKET_SIZE = 1400;
+
+    private static final CircuitState[] STATES = CircuitState.values();
+
+    private final InetAddress group;
+
+    private final int port;
+
+    private final MulticastSocket socket;
+
+    private final Thread receiverThread;
+
+    public MulticastBreakerStateStore(String group, int port, int timeToLive, long flushInterval, TimeUnit unit) {
+        super(flushInterval, unit, "circuit-state-publisher");
+        try {
+            this.group = InetAddress.getByName(group);
+            this.port = port;
+            this.socket = new MulticastSocket(port);
+            this.socket.setTimeToLive(timeToLive);
+            // 同一台机器上的多个 JVM 也能收到
+            this.socket.setLoopbackMode(false);
+            this.socket.setSoTimeout(1000);
+            this.socket.joinGroup(this.group);
+        } catch (IOException e) {
+            throw new UncheckedIOException("加入熔断状态组播组失败: " + group + ":" + port, e);
+        }
+        this.receiverThread = new Thread(this::receiveLoop, "circuit-state-receiver");
+        this.receiverThread.setDaemon(true);
+        this.receiverThread.start();
+        start();
+        logger.info("熔断状态组播已启动: {}:{}", group, port);
+    }
+
+    @Override
+    protected void send(long origin, Collection<BreakerStateEvent> events) throws IOException {
+        final List<byte[]> encoded = new ArrayList<>(events.size());
+        int size = 0;
+        for (BreakerStateEvent event : events) {
+            final byte[] bytes = encode(event);
+            if (!encoded.isEmpty() && size + bytes.length > MAX_PACKET_SIZE - 16) {
+                sendPacket(origin, encoded);
+                encoded.clear();
+                size = 0;
+            }
+            encoded.add(bytes);
+            size += bytes.length;
+        }
+        sendPacket(origin, encoded);
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        socket.close();
+        receiverThread.interrupt();
+        logger.info("熔断状态组播已停止");
+    }
+
+    private void sendPacket(long origin, List<byte[]> events) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(MAX_PACKET_SIZE);
+        final DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(origin);
+        out.writeShort(events.size());
+        for (byte[] event : events) {
+            out.write(event);
+        }
+        final byte[] bytes = buffer.toByteArray();
+        socket.send(new DatagramPacket(bytes, bytes.length, group, port));
+    }
+
+    private static byte[] encode(BreakerStateEvent event) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        final DataOutputStream out = new DataOutputStream(buffer);
+        out.writeUTF(event.getKey());
+        out.writeByte(event.getState().ordinal());
+        out.writeLong(event.getOpenMillis());
+        return buffer.toByteArray();
+    }
+
+    private void receiveLoop() {
+        final byte[] buffer = new byte[MAX_PACKET_SIZE];
+        while (running) {
+            final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                decode(packet);
+            } catch (SocketTimeoutException e) {
+                // 定期检查是否已停止
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("接收熔断状态失败", e);
+                }
+            }
+        }
+    }
+
+    private void decode(DatagramPacket packet) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(packet.getData(), packet.getOffset(), packet.getLength()));
+        if (packet.getLength() < 15 || in.readInt() != MAGIC || in.readByte() != VERSION) {
+            // 不是本组件的报文
+            return;
+        }
+        final long origin = in.readLong();
+        final int count = in.readUnsignedShort();
+        final List<BreakerStateEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String key = in.readUTF();
+            final int state = in.readUnsignedByte();
+            final long openMillis = in.readLong();
+            if (state < STATES.length) {
+                events.add(new BreakerStateEvent(key, STATES[state], openMillis));
+            }
+        }
+        deliver(origin, events);
+    }
+}
@@ -0,0 +1,70 @@
+package com.hhy.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ArbiterBucketRollTest {
+
+    private static final int THREADS = 4;
+    private static final int RECORDS_PER_THREAD = 20000;
+
+    @Test
+    void concurrentRecordsAcrossBucketRollAreNotLost() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            // 两个 50ms 子桶，写入集中在子桶交界处，任何 50ms 内完成的写入都应完整留在窗口里
+            CircuitBreakerArbiter arbiter = new CircuitBreakerArbiter(100, TimeUnit.MILLISECONDS, 2);
+            long origin = System.nanoTime();
+            CyclicBarrier barrier = new CyclicBarrier(THREADS + 1);
+            Thread[] threads = new Thread[THREADS];
+            for (int i = 0; i < THREADS; i++) {
+                threads[i] = new Thread(() -> {
+                    try {
+                        barrier.await();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    for (int j = 0; j < RECORDS_PER_THREAD; j++) {
+                        arbiter.record(j % 2 == 0, false);
+                    }
+                });
+                threads[i].start();
+            }
+            long untilBoundary = TimeUnit.MILLISECONDS.toNanos(49) - (System.nanoTime() - origin);
+            if (untilBoundary > 0) {
+                TimeUnit.NANOSECONDS.sleep(untilBoundary);
+            }
+            long start = System.nanoTime();
+            barrier.await();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long successCount = arbiter.getSuccessCount();
+            long failCount = arbiter.getFailCount();
+            assumeTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(45), "写入耗时超过一个子桶，结果不可判定");
+            assertEquals(THREADS * RECORDS_PER_THREAD / 2, successCount);
+            assertEquals(THREADS * RECORDS_PER_THREAD / 2, failCount);
+        }
+    }
+
+    @Test
+    void resetEmptiesTheWindowWithoutStoppingRecords() {
+        CircuitBreakerArbiter arbiter = new CircuitBreakerArbiter(1, TimeUnit.MINUTES, 4);
+        arbiter.record(true, true);
+        arbiter.record(false, false);
+        arbiter.reset();
+        assertEquals(0, arbiter.getSuccessCount());
+        assertEquals(0, arbiter.getFailCount());
+        assertEquals(0, arbiter.getSlowCount());
+
+        // 清空后同一时间片的记录落在新的空子桶上
+        arbiter.record(false, true);
+        assertEquals(0, arbiter.getSuccessCount());
+        assertEquals(1, arbiter.getFailCount());
+        assertEquals(1, arbiter.getSlowCount());
+    }
+}
@@ -0,0 +1,106 @@
+package com.hhy.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArbiterThresholdTest {
+
+    public static class Catalog {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String inherited() {
+            return "ok";
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, minimumNumberOfCalls = 3)
+        public String explicit() {
+            return "ok";
+        }
+    }
+
+    private static CircuitBreakerArbiter arbiter(double failureRateThreshold, int minimumNumberOfCalls) {
+        return new CircuitBreakerArbiter(1, TimeUnit.MINUTES, CircuitBreakerArbiter.DEFAULT_BUCKET_COUNT,
+                failureRateThreshold, 1.0, minimumNumberOfCalls);
+    }
+
+    private static void record(CircuitBreakerArbiter arbiter, int success, int fail) {
+        for (int i = 0; i < success; i++) {
+            arbiter.record(true, false);
+        }
+        for (int i = 0; i < fail; i++) {
+            arbiter.record(false, false);
+        }
+    }
+
+    @Test
+    void noVerdictBelowTheMinimumNumberOfCalls() {
+        final CircuitBreakerArbiter arbiter = arbiter(0.5, 5);
+        assertFalse(arbiter.isTripped(false));
+        record(arbiter, 0, 4);
+        assertFalse(arbiter.isTripped(false));
+        // 成功的调用同样计入最小调用数
+        record(arbiter, 1, 0);
+        assertTrue(arbiter.isTripped(false));
+
+        final CircuitBreakerArbiter noMinimum = arbiter(0.5, 0);
+        assertFalse(noMinimum.isTripped(false));
+        record(noMinimum, 0, 1);
+        assertTrue(noMinimum.isTripped(false));
+    }
+
+    @Test
+    void rateEqualToTheThresholdDoesNotTrip() {
+        final CircuitBreakerArbiter half = arbiter(0.5, 1);
+        record(half, 1, 1);
+        assertFalse(half.isTripped(false));
+        record(half, 0, 1);
+        assertTrue(half.isTripped(false));
+
+        // 0.1 不能用二进制浮点精确表示，换算为定点后 1/10 仍然恰好等于阈值
+        final CircuitBreakerArbiter tenth = arbiter(0.1, 1);
+        record(tenth, 9, 1);
+        assertFalse(tenth.isTripped(false));
+        record(tenth, 0, 1);
+        assertTrue(tenth.isTripped(false));
+
+        final CircuitBreakerArbiter large = arbiter(0.3, 1);
+        record(large, 700_000, 300_000);
+        assertFalse(large.isTripped(false));
+        record(large, 0, 1);
+        assertTrue(large.isTripped(false));
+    }
+
+    @Test
+    void thresholdsAreClampedToTheUnitInterval() {
+        final CircuitBreakerArbiter never = arbiter(1.5, 1);
+        record(never, 0, 10);
+        assertFalse(never.isTripped(false));
+
+        final CircuitBreakerArbiter always = arbiter(-1, 1);
+        record(always, 1000, 1);
+        assertTrue(always.isTripped(false));
+    }
+
+    @Test
+    void slowCallRateIsOnlyJudgedWhenRequested() {
+        final CircuitBreakerArbiter arbiter = new CircuitBreakerArbiter(1, TimeUnit.MINUTES, CircuitBreakerArbiter.DEFAULT_BUCKET_COUNT,
+                1.0, 0.5, 2);
+        arbiter.record(true, true);
+        arbiter.record(true, true);
+        assertFalse(arbiter.isTripped(false));
+        assertTrue(arbiter.isTripped(true));
+    }
+
+    @Test
+    void unsetMinimumFallsBackToTheGlobalSetting() throws NoSuchMethodException {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        support.properties.setMinimumNumberOfCalls(10);
+        final Catalog catalog = new Catalog();
+        assertEquals(10, support.describe(catalog, "inherited").getMethodWrapper().getRequestRate().getMinimumNumberOfCalls());
+        assertEquals(3, support.describe(catalog, "explicit").getMethodWrapper().getRequestRate().getMinimumNumberOfCalls());
+    }
+}
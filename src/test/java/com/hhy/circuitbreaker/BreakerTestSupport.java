@@ -0,0 +1,114 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.config.HHYCircuitBreakerProperties;
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import com.hhy.circuitbreaker.scheduler.IBreakerScheduler;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 描述: 测试用的熔断控制器与拦截器装配，定时任务由测试手动触发
+ * </p>
+ *
+ * @Author hhy
+ */
+final class BreakerTestSupport {
+    final ManualScheduler scheduler = new ManualScheduler();
+    final HHYCircuitBreakerProperties properties = new HHYCircuitBreakerProperties();
+    final HHYCircuitBreakerController controller;
+
+    BreakerTestSupport(int halfOpenPermittedCalls) {
+        properties.setMaxRetry(3);
+        properties.setRetryInterval(1000);
+        properties.setBackoffMultiplier(2.0);
+        properties.setBackoffMaxInterval(60000);
+        properties.setBackoffJitter(0);
+        properties.setMinimumNumberOfCalls(1);
+        properties.setHalfOpenPermittedCalls(halfOpenPermittedCalls);
+        properties.setHalfOpenMaxWait(60000);
+        controller = new HHYCircuitBreakerController(properties, scheduler);
+    }
+
+    CircuitBreakerMethodDescriptor describe(Object target, String methodName, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return CircuitBreakerMethodDescriptor.of(target, target.getClass().getMethod(methodName, parameterTypes), controller);
+    }
+
+    /**
+     * 接口代理方式的拦截器，原方法直接在原始对象上调用
+     */
+    HHYCircuitBreakerMethodInterceptor interceptor(CircuitBreakerMethodDescriptor descriptor, Object target, ExecutorService callExecutor) {
+        return new HHYCircuitBreakerMethodInterceptor(descriptor, controller, callExecutor, target);
+    }
+
+    static Object call(HHYCircuitBreakerMethodInterceptor interceptor, CircuitBreakerMethodDescriptor descriptor, Object... args) throws Throwable {
+        final Method method = descriptor.getMethod();
+        return interceptor.intercept(null, method, args, null);
+    }
+
+    /**
+     * 打开熔断并立即结束等待期，进入半开
+     */
+    void halfOpen(CircuitBreakerMethodDescriptor descriptor) {
+        controller.trigger(descriptor.getMethodWrapper());
+        scheduler.runPending();
+        if (descriptor.getState().get() != CircuitState.HALF_OPEN) {
+            throw new IllegalStateException("未进入半开: " + descriptor.getState().get());
+        }
+    }
+
+    static final class ManualScheduler implements IBreakerScheduler {
+        private final List<Runnable> tasks = new ArrayList<>();
+        private boolean stopped;
+
+        @Override
+        public synchronized Handle schedule(Runnable task, long delay, TimeUnit unit) {
+            if (stopped) {
+                throw new IllegalStateException("定时器已停止");
+            }
+            tasks.add(task);
+            return new Handle() {
+                @Override
+                public boolean cancel() {
+                    synchronized (ManualScheduler.this) {
+                        return tasks.remove(task);
+                    }
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * 执行目前已安排的任务，执行过程中新安排的任务留到下一次
+         */
+        void runPending() {
+            final List<Runnable> pending;
+            synchronized (this) {
+                pending = new ArrayList<>(tasks);
+                tasks.clear();
+            }
+            pending.forEach(Runnable::run);
+        }
+
+        synchronized int pendingCount() {
+            return tasks.size();
+        }
+
+        synchronized boolean isStopped() {
+            return stopped;
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            stopped = true;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkheadTimeoutTest {
+
+    public static class Downstream {
+        final CountDownLatch finished = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean block = new AtomicBoolean(true);
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 1.0, callback = "fallback", maxConcurrentCalls = 1, timeout = 50)
+        public String call() {
+            if (block.compareAndSet(true, false)) {
+                // 忽略中断，模拟超时后仍在运行的下游调用
+                boolean done = false;
+                while (!done) {
+                    try {
+                        done = release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+                finished.countDown();
+            }
+            return "ok";
+        }
+
+        public String fallback(Throwable cause) {
+            return "fallback:" + cause.getClass().getSimpleName();
+        }
+    }
+
+    @Test
+    void semaphoreIsHeldUntilTimedOutCallFinishes() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Downstream downstream = new Downstream();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(downstream, "call");
+        final ExecutorService callExecutor = Executors.newCachedThreadPool();
+        try {
+            final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, downstream, callExecutor);
+
+            assertEquals("fallback:CallTimeoutException", BreakerTestSupport.call(interceptor, descriptor));
+            // 超时的调用仍占用舱壁
+            assertEquals(1, descriptor.getBulkhead().getConcurrentCalls());
+            assertEquals("fallback:BulkheadFullException", BreakerTestSupport.call(interceptor, descriptor));
+
+            downstream.release.countDown();
+            assertTrue(downstream.finished.await(5, TimeUnit.SECONDS));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (descriptor.getBulkhead().getConcurrentCalls() > 0 && System.nanoTime() < deadline) {
+                Thread.yield();
+            }
+            assertEquals(0, descriptor.getBulkhead().getConcurrentCalls());
+            assertEquals("ok", BreakerTestSupport.call(interceptor, descriptor));
+        } finally {
+            callExecutor.shutdownNow();
+        }
+    }
+}
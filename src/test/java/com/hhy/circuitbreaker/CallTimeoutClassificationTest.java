@@ -0,0 +1,67 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CallTimeoutClassificationTest {
+
+    public static class Downstream {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback", timeout = 1000, ignoreExceptions = TimeoutException.class)
+        public String call() throws TimeoutException {
+            throw new TimeoutException("下游自己的超时");
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback", timeout = 1000, recordExceptions = IllegalStateException.class)
+        public String rejected() {
+            return "ok";
+        }
+
+        public String fallback(Throwable cause) {
+            return "fallback:" + cause.getClass().getSimpleName();
+        }
+    }
+
+    @Test
+    void timeoutThrownByTheTargetGoesThroughTheClassifier() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Downstream downstream = new Downstream();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(downstream, "call");
+        final ExecutorService callExecutor = Executors.newCachedThreadPool();
+        try {
+            final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, downstream, callExecutor);
+
+            // 被忽略的异常原样抛给调用方，不计入统计
+            assertThrows(TimeoutException.class, () -> BreakerTestSupport.call(interceptor, descriptor));
+            assertEquals(0, descriptor.getMethodWrapper().getRequestRate().getFailCount());
+            assertEquals(CircuitState.CLOSED, descriptor.getState().get());
+        } finally {
+            callExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectedByTheCallExecutorCountsAsRejection() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Downstream downstream = new Downstream();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(downstream, "rejected");
+        final ThreadPoolExecutor callExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        callExecutor.setRejectedExecutionHandler((r, executor) -> {
+            throw new RejectedExecutionException("busy");
+        });
+        callExecutor.shutdown();
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, downstream, callExecutor);
+
+        // 拒绝不受 recordExceptions 影响，总是记为失败
+        assertEquals("fallback:BulkheadFullException", BreakerTestSupport.call(interceptor, descriptor));
+        assertEquals(CircuitState.OPEN, descriptor.getState().get());
+    }
+}
@@ -0,0 +1,69 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitHalfOpenTest {
+
+    public static class Downstream {
+        final CountDownLatch firstStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirst = new CountDownLatch(1);
+        final AtomicBoolean block = new AtomicBoolean(true);
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback", concurrencyLimit = ConcurrencyLimitType.AIMD,
+                concurrencyLimitInitial = 1, concurrencyLimitMin = 1, concurrencyLimitMax = 1)
+        public String call() throws InterruptedException {
+            if (block.compareAndSet(true, false)) {
+                firstStarted.countDown();
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            }
+            return "ok";
+        }
+
+        public String fallback(Throwable cause) {
+            return "fallback:" + cause.getClass().getSimpleName();
+        }
+    }
+
+    @Test
+    void trialRejectedByTheLimiterReturnsItsPermit() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(2);
+        final Downstream downstream = new Downstream();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(downstream, "call");
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, downstream, null);
+        support.halfOpen(descriptor);
+
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Object> first = pool.submit(() -> {
+                try {
+                    return BreakerTestSupport.call(interceptor, descriptor);
+                } catch (Throwable e) {
+                    return e;
+                }
+            });
+            assertTrue(downstream.firstStarted.await(5, TimeUnit.SECONDS));
+            // 限制器已满，第二个试探被舍弃，试探许可必须归还
+            assertEquals("fallback:ConcurrencyLimitExceededException", BreakerTestSupport.call(interceptor, descriptor));
+            assertEquals(1, descriptor.getState().getTrialPermits());
+            downstream.releaseFirst.countDown();
+            assertEquals("ok", first.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(CircuitState.HALF_OPEN, descriptor.getState().get());
+        assertEquals("ok", BreakerTestSupport.call(interceptor, descriptor));
+        assertEquals(CircuitState.CLOSED, descriptor.getState().get());
+    }
+}
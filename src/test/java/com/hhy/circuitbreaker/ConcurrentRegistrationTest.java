@@ -0,0 +1,151 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.metrics.IMethodMetrics;
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrentRegistrationTest {
+
+    private static final int THREADS = 8;
+
+    public static class Orders {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback")
+        public String create() {
+            throw new IllegalStateException("down");
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback")
+        public String query() {
+            return "ok";
+        }
+
+        public String fallback() {
+            return "fallback";
+        }
+    }
+
+    @Test
+    void concurrentRegistrationsGetDistinctDenseIds() throws Exception {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Method create = Orders.class.getMethod("create");
+        final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Integer>> ids = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                ids.add(pool.submit(() -> {
+                    start.await();
+                    return CircuitBreakerMethodDescriptor.of(new Orders(), create, support.controller).getMethodWrapper().getMethodId();
+                }));
+            }
+            start.countDown();
+            final Set<Integer> distinct = new HashSet<>();
+            for (Future<Integer> id : ids) {
+                distinct.add(id.get());
+            }
+            assertEquals(64, distinct.size());
+            assertEquals(0, (int) distinct.stream().min(Integer::compare).get());
+            assertEquals(63, (int) distinct.stream().max(Integer::compare).get());
+            assertEquals(64, support.controller.list().size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void racingTripsOpenTheBreakerOnce() throws Exception {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final AtomicInteger opened = new AtomicInteger();
+        final HHYCircuitBreakerController controller = new HHYCircuitBreakerController(support.properties, support.scheduler,
+                methodWrapper -> new IMethodMetrics() {
+                    @Override
+                    public void onStateTransition(CircuitState from, CircuitState to) {
+                        if (to == CircuitState.OPEN) {
+                            opened.incrementAndGet();
+                        }
+                    }
+                });
+        final MethodWrapper methodWrapper = CircuitBreakerMethodDescriptor.of(new Orders(), Orders.class.getMethod("create"), controller)
+                .getMethodWrapper();
+        final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> trips = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                trips.add(pool.submit(() -> {
+                    start.await();
+                    controller.trigger(methodWrapper);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> trip : trips) {
+                trip.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(CircuitState.OPEN, methodWrapper.getState().get());
+        assertEquals(1, opened.get());
+        // 只安排了一个等待期结束的任务
+        assertEquals(1, support.scheduler.pendingCount());
+    }
+
+    @Test
+    void methodsOnTheSameBeanKeepSeparateWindows() throws Exception {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        support.properties.setMinimumNumberOfCalls(4);
+        final Orders target = new Orders();
+        final CircuitBreakerMethodDescriptor create = support.describe(target, "create");
+        final CircuitBreakerMethodDescriptor query = support.describe(target, "query");
+        final HHYCircuitBreakerMethodInterceptor createInterceptor = support.interceptor(create, target, null);
+        final HHYCircuitBreakerMethodInterceptor queryInterceptor = support.interceptor(query, target, null);
+        final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                final boolean failing = i % 2 == 0;
+                calls.add(pool.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 2; j++) {
+                        try {
+                            if (failing) {
+                                assertEquals("fallback", BreakerTestSupport.call(createInterceptor, create));
+                            } else {
+                                assertEquals("ok", BreakerTestSupport.call(queryInterceptor, query));
+                            }
+                        } catch (Throwable e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        // create 的失败不会计入 query 的窗口
+        assertEquals(CircuitState.OPEN, create.getState().get());
+        assertEquals(CircuitState.CLOSED, query.getState().get());
+        assertEquals(0, query.getMethodWrapper().getRequestRate().getFailCount());
+        assertEquals(THREADS, query.getMethodWrapper().getRequestRate().getSuccessCount());
+    }
+}
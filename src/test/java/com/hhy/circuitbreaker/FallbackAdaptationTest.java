@@ -0,0 +1,128 @@
+package com.hhy.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FallbackAdaptationTest {
+
+    private static final IllegalStateException CAUSE = new IllegalStateException("down");
+
+    public static class Service {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "constant")
+        public String noArgs(String id, int page) {
+            return id;
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "widened")
+        public String sameArgs(String id, int page) {
+            return id;
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "overloaded")
+        public String argsAndCause(String id, int page) {
+            return id;
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "zero")
+        public int primitive(long id) {
+            return 1;
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "value")
+        public CompletableFuture<String> async(String id) {
+            return CompletableFuture.completedFuture(id);
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String none(String id) {
+            return id;
+        }
+
+        public String constant() {
+            return "constant";
+        }
+
+        public String widened(Object id, int page) {
+            return "widened:" + id + ":" + page;
+        }
+
+        public String overloaded() {
+            return "no-args";
+        }
+
+        public String overloaded(String id, int page) {
+            return "args:" + id;
+        }
+
+        public String overloaded(String id, int page, Throwable cause) {
+            return "cause:" + id + ":" + page + ":" + cause.getMessage();
+        }
+
+        public int zero(long id) {
+            return (int) -id;
+        }
+
+        public String value(String id) {
+            return "value:" + id;
+        }
+    }
+
+    public static class WrongArgs {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback")
+        public String call(String id) {
+            return id;
+        }
+
+        public String fallback(Integer id) {
+            return "x";
+        }
+    }
+
+    public static class WrongReturn {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback")
+        public String call(String id) {
+            return id;
+        }
+
+        public Integer fallback(String id) {
+            return 0;
+        }
+    }
+
+    private final BreakerTestSupport support = new BreakerTestSupport(1);
+
+    private Object fallback(String methodName, Class<?>[] types, Object... args) throws Throwable {
+        return support.describe(new Service(), methodName, types).invokeFallback(args, CAUSE);
+    }
+
+    @Test
+    void fallbackSignaturesAreAdaptedToTheCallArguments() throws Throwable {
+        final Class<?>[] types = {String.class, int.class};
+        assertEquals("constant", fallback("noArgs", types, "a", 1));
+        assertEquals("widened:a:2", fallback("sameArgs", types, "a", 2));
+        // 同名方法中选用参数最完整的一个，异常追加在参数之后
+        assertEquals("cause:a:3:down", fallback("argsAndCause", types, "a", 3));
+        // 基本类型参数与返回值按需拆箱、装箱
+        assertEquals(-7, fallback("primitive", new Class<?>[]{long.class}, 7L));
+        // CompletableFuture 方法的降级方法可以直接返回元素值，由拦截器包装
+        assertEquals("value:a", fallback("async", new Class<?>[]{String.class}, "a"));
+    }
+
+    @Test
+    void missingFallbackIsReportedOnInvoke() throws NoSuchMethodException {
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(new Service(), "none", String.class);
+        assertFalse(descriptor.hasFallback());
+        assertThrows(IllegalStateException.class, () -> descriptor.invokeFallback(new Object[]{"a"}, CAUSE));
+    }
+
+    @Test
+    void incompatibleFallbacksFailWhenTheDescriptorIsBuilt() {
+        assertThrows(IllegalStateException.class, () -> support.describe(new WrongArgs(), "call", String.class));
+        assertThrows(IllegalStateException.class, () -> support.describe(new WrongReturn(), "call", String.class));
+    }
+}
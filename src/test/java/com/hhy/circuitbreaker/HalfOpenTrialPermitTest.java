@@ -0,0 +1,179 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HalfOpenTrialPermitTest {
+
+    public static class Downstream {
+        final CountDownLatch trialStarted = new CountDownLatch(1);
+        final CountDownLatch releaseTrial = new CountDownLatch(1);
+        final AtomicBoolean blockAndIgnore = new AtomicBoolean(true);
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback", ignoreExceptions = IllegalArgumentException.class)
+        public String call() throws InterruptedException {
+            if (blockAndIgnore.compareAndSet(true, false)) {
+                trialStarted.countDown();
+                releaseTrial.await(5, TimeUnit.SECONDS);
+                throw new IllegalArgumentException("ignored");
+            }
+            return "ok";
+        }
+
+        public String fallback() {
+            return "fallback";
+        }
+    }
+
+    @Test
+    void refusedCallsNeverDriveThePermitsNegative() throws Exception {
+        final CircuitBreakerState state = new CircuitBreakerState();
+        state.compareAndSet(CircuitState.CLOSED, CircuitState.OPEN);
+        assertTrue(state.transitionToHalfOpen(1));
+        final int round = state.tryAcquireTrialPermit();
+        assertNotEquals(CircuitBreakerState.NO_PERMIT, round);
+
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Integer>> refused = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                refused.add(pool.submit(() -> {
+                    start.await();
+                    return state.tryAcquireTrialPermit();
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> future : refused) {
+                assertEquals(CircuitBreakerState.NO_PERMIT, future.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, state.getTrialPermits());
+        state.releaseTrialPermit(round);
+        assertEquals(round, state.tryAcquireTrialPermit());
+    }
+
+    @Test
+    void lateOutcomesOfAnEndedRoundDoNotLeakIntoTheNextRound() {
+        final CircuitBreakerState state = new CircuitBreakerState();
+        state.compareAndSet(CircuitState.CLOSED, CircuitState.OPEN);
+        assertTrue(state.transitionToHalfOpen(1));
+        final int stale = state.tryAcquireTrialPermit();
+        // 这一轮超时重新熔断，随后开始新一轮
+        assertTrue(state.compareAndSet(CircuitState.HALF_OPEN, CircuitState.OPEN));
+        assertTrue(state.transitionToHalfOpen(1));
+        final int round = state.getHalfOpenRound();
+        assertNotEquals(stale, round);
+
+        // 上一轮迟到的归还与成功都不计入新一轮
+        state.releaseTrialPermit(stale);
+        assertEquals(1, state.getTrialPermits());
+        assertFalse(state.onTrialSuccess(stale));
+        assertFalse(state.isHalfOpenRound(stale));
+        assertEquals(CircuitState.HALF_OPEN, state.get());
+
+        assertEquals(round, state.tryAcquireTrialPermit());
+        assertTrue(state.onTrialSuccess(round));
+        assertEquals(CircuitState.CLOSED, state.get());
+    }
+
+    @Test
+    void onlyOneConcurrentTransitionStartsARound() {
+        final CircuitBreakerState state = new CircuitBreakerState();
+        state.compareAndSet(CircuitState.CLOSED, CircuitState.OPEN);
+        assertTrue(state.transitionToHalfOpen(1));
+        final int round = state.tryAcquireTrialPermit();
+        // 晚到的迁移不能重置已发放的许可
+        assertFalse(state.transitionToHalfOpen(1));
+        assertEquals(round, state.getHalfOpenRound());
+        assertEquals(0, state.getTrialPermits());
+    }
+
+    @Test
+    void ignoredTrialOutcomeLetsTheNextTrialThrough() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Downstream downstream = new Downstream();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(downstream, "call");
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, downstream, null);
+        support.halfOpen(descriptor);
+
+        final ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            final Future<Object> trial = pool.submit(() -> {
+                try {
+                    return BreakerTestSupport.call(interceptor, descriptor);
+                } catch (Throwable e) {
+                    return e;
+                }
+            });
+            assertTrue(downstream.trialStarted.await(5, TimeUnit.SECONDS));
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Object>> concurrent = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                concurrent.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        return BreakerTestSupport.call(interceptor, descriptor);
+                    } catch (Throwable e) {
+                        return e;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Object> future : concurrent) {
+                assertEquals("fallback", future.get(5, TimeUnit.SECONDS));
+            }
+            downstream.releaseTrial.countDown();
+            assertTrue(trial.get(5, TimeUnit.SECONDS) instanceof IllegalArgumentException);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(CircuitState.HALF_OPEN, descriptor.getState().get());
+        assertEquals("ok", BreakerTestSupport.call(interceptor, descriptor));
+        assertEquals(CircuitState.CLOSED, descriptor.getState().get());
+    }
+
+    @Test
+    void halfOpenMaxWaitReopensAWedgedBreaker() {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final MethodWrapper wrapper;
+        try {
+            wrapper = support.describe(new Downstream(), "call").getMethodWrapper();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        support.controller.trigger(wrapper);
+        support.scheduler.runPending();
+        assertEquals(CircuitState.HALF_OPEN, wrapper.getState().get());
+        // 许可丢失，没有试探能够结束这一轮
+        final int wedged = wrapper.getState().tryAcquireTrialPermit();
+        assertNotEquals(CircuitBreakerState.NO_PERMIT, wedged);
+
+        support.scheduler.runPending();
+        assertEquals(CircuitState.OPEN, wrapper.getState().get());
+        assertEquals(1, wrapper.getRetriedCount());
+        support.scheduler.runPending();
+        assertEquals(CircuitState.HALF_OPEN, wrapper.getState().get());
+        // 上一轮的试探迟到的成功不会关闭新一轮
+        support.controller.onTrialSuccess(wrapper, wedged);
+        assertEquals(CircuitState.HALF_OPEN, wrapper.getState().get());
+        assertNotEquals(CircuitBreakerState.NO_PERMIT, wrapper.getState().tryAcquireTrialPermit());
+    }
+}
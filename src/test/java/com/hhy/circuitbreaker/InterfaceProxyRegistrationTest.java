@@ -0,0 +1,61 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.index.CircuitBreakerMethodIndex;
+import com.hhy.circuitbreaker.proxy.ProxyMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InterfaceProxyRegistrationTest {
+
+    public interface Api {
+        String call();
+    }
+
+    public static class ApiImpl implements Api {
+        @Override
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String call() {
+            return "ok";
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String internal() {
+            return "ok";
+        }
+    }
+
+    public static class InternalOnly implements Runnable {
+        @Override
+        public void run() {
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String internal() {
+            return "ok";
+        }
+    }
+
+    @Test
+    void onlyInterfaceMethodsAreRegistered() {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final HHYCircuitBreakerBeanPostProcessor processor = new HHYCircuitBreakerBeanPostProcessor(support.controller, null,
+                ProxyMode.INTERFACE, new CircuitBreakerMethodIndex(getClass().getClassLoader(), false));
+
+        final Object proxy = processor.postProcessBeforeInitialization(new ApiImpl(), "api");
+        assertTrue(proxy instanceof Api);
+        assertEquals("ok", ((Api) proxy).call());
+
+        final InternalOnly internalOnly = new InternalOnly();
+        assertSame(internalOnly, processor.postProcessBeforeInitialization(internalOnly, "internalOnly"));
+
+        final List<String> keys = support.controller.list().stream().map(BreakerStatus::getKey).collect(Collectors.toList());
+        assertEquals(1, keys.size());
+        assertTrue(keys.get(0).endsWith("#call()"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ManualControlTest {
+
+    public static class Inventory {
+        final AtomicInteger invocations = new AtomicInteger();
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback")
+        public String stock(boolean fail) {
+            invocations.incrementAndGet();
+            if (fail) {
+                throw new IllegalStateException("down");
+            }
+            return "ok";
+        }
+
+        public String fallback(boolean fail) {
+            return "fallback";
+        }
+    }
+
+    private BreakerTestSupport support;
+    private Inventory inventory;
+    private CircuitBreakerMethodDescriptor descriptor;
+    private HHYCircuitBreakerMethodInterceptor interceptor;
+    private String key;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        support = new BreakerTestSupport(1);
+        inventory = new Inventory();
+        descriptor = support.describe(inventory, "stock", boolean.class);
+        interceptor = support.interceptor(descriptor, inventory, null);
+        key = descriptor.getMethodWrapper().getKey();
+    }
+
+    private Object stock(boolean fail) throws Throwable {
+        return BreakerTestSupport.call(interceptor, descriptor, fail);
+    }
+
+    @Test
+    void forceOpenShortCircuitsAndCancelsTheRecoveryTimer() throws Throwable {
+        support.controller.trigger(descriptor.getMethodWrapper());
+        assertEquals(1, support.scheduler.pendingCount());
+
+        assertTrue(support.controller.forceOpen(key));
+        assertEquals(0, support.scheduler.pendingCount());
+        assertEquals(CircuitState.FORCED_OPEN, descriptor.getState().get());
+
+        assertEquals("fallback", stock(false));
+        assertEquals(0, inventory.invocations.get());
+    }
+
+    @Test
+    void disableLetsCallsThroughWithoutCounting() throws Throwable {
+        assertTrue(support.controller.disable(key));
+
+        assertEquals("ok", stock(false));
+        assertThrows(IllegalStateException.class, () -> stock(true));
+        assertThrows(IllegalStateException.class, () -> stock(true));
+        assertEquals(3, inventory.invocations.get());
+        assertEquals(CircuitState.DISABLED, descriptor.getState().get());
+        assertEquals(0, descriptor.getMethodWrapper().getRequestRate().getFailCount());
+    }
+
+    @Test
+    void forceCloseKeepsTheWindowWhileResetClearsIt() throws Throwable {
+        support.halfOpen(descriptor);
+        assertEquals("fallback", stock(true));
+        assertEquals(CircuitState.OPEN, descriptor.getState().get());
+        assertEquals(1, descriptor.getMethodWrapper().getRetriedCount());
+
+        assertTrue(support.controller.forceClose(key));
+        // 恢复任务已取消，到期后不会再进入半开
+        support.scheduler.runPending();
+        assertEquals(CircuitState.CLOSED, descriptor.getState().get());
+        assertEquals("ok", stock(false));
+        assertEquals("fallback", stock(true));
+        assertEquals(1, descriptor.getMethodWrapper().getRetriedCount());
+        assertEquals(1, descriptor.getMethodWrapper().getRequestRate().getFailCount());
+
+        assertTrue(support.controller.reset(key));
+        final BreakerStatus status = support.controller.list().get(0);
+        assertEquals(key, status.getKey());
+        assertEquals(CircuitState.CLOSED, status.getState());
+        assertEquals(0, status.getRetriedCount());
+        assertEquals(0, status.getSuccessCount() + status.getFailCount());
+    }
+
+    @Test
+    void unknownKeysAreReported() {
+        assertFalse(support.controller.forceOpen(key + "x"));
+        assertFalse(support.controller.reset("missing"));
+        assertEquals(CircuitState.CLOSED, descriptor.getState().get());
+    }
+}
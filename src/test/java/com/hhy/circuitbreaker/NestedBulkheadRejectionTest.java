@@ -0,0 +1,49 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NestedBulkheadRejectionTest {
+
+    public static class Inner {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 1.0, maxConcurrentCalls = 1)
+        public String call() {
+            return "inner";
+        }
+    }
+
+    public static class Outer {
+        HHYCircuitBreakerMethodInterceptor inner;
+        CircuitBreakerMethodDescriptor innerDescriptor;
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback", ignoreExceptions = BulkheadFullException.class)
+        public String call() throws Throwable {
+            return (String) BreakerTestSupport.call(inner, innerDescriptor);
+        }
+
+        public String fallback(Throwable cause) {
+            return "fallback:" + cause.getClass().getSimpleName();
+        }
+    }
+
+    @Test
+    void nestedBulkheadRejectionIsClassifiedAsTheTargetsException() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Inner inner = new Inner();
+        final Outer outer = new Outer();
+        outer.innerDescriptor = support.describe(inner, "call");
+        outer.inner = support.interceptor(outer.innerDescriptor, inner, null);
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(outer, "call");
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, outer, null);
+
+        // 占满内层舱壁，内层没有降级方法，拒绝原样抛给外层
+        assertTrue(outer.innerDescriptor.getBulkhead().tryAcquire());
+        assertThrows(BulkheadFullException.class, () -> BreakerTestSupport.call(interceptor, descriptor));
+        assertEquals(0, descriptor.getMethodWrapper().getRequestRate().getFailCount());
+        assertEquals(CircuitState.CLOSED, descriptor.getState().get());
+    }
+}
@@ -0,0 +1,61 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.metrics.IMethodMetrics;
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionIsolationTest {
+
+    public static class TenantService {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback", partitionKey = "#p0")
+        public String query(String tenant) {
+            if ("bad".equals(tenant)) {
+                throw new IllegalStateException("down");
+            }
+            return "ok";
+        }
+
+        public String fallback(String tenant) {
+            return "fallback";
+        }
+    }
+
+    @Test
+    void partitionTripsStayOutOfTheMethodLevelBreaker() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final List<String> transitions = new CopyOnWriteArrayList<>();
+        final HHYCircuitBreakerController controller = new HHYCircuitBreakerController(support.properties, support.scheduler,
+                methodWrapper -> new IMethodMetrics() {
+                    @Override
+                    public void onStateTransition(CircuitState from, CircuitState to) {
+                        transitions.add(from + "->" + to);
+                    }
+                });
+        final TenantService target = new TenantService();
+        final CircuitBreakerMethodDescriptor descriptor = CircuitBreakerMethodDescriptor.of(target,
+                TenantService.class.getMethod("query", String.class), controller);
+        final HHYCircuitBreakerMethodInterceptor interceptor = new HHYCircuitBreakerMethodInterceptor(descriptor, controller, null, target);
+
+        assertEquals("fallback", BreakerTestSupport.call(interceptor, descriptor, "bad"));
+        final MethodWrapper bad = descriptor.getPartition(new Object[]{"bad"});
+        assertEquals(CircuitState.OPEN, bad.getState().get());
+        assertEquals("ok", BreakerTestSupport.call(interceptor, descriptor, "good"));
+
+        // 试探失败后分区按自己的重试次数退避
+        support.scheduler.runPending();
+        assertEquals(CircuitState.HALF_OPEN, bad.getState().get());
+        assertEquals("fallback", BreakerTestSupport.call(interceptor, descriptor, "bad"));
+        assertEquals(CircuitState.OPEN, bad.getState().get());
+        assertEquals(1, bad.getRetriedCount());
+
+        assertEquals(CircuitState.CLOSED, descriptor.getState().get());
+        assertEquals(0, descriptor.getMethodWrapper().getRetriedCount());
+        assertTrue(transitions.isEmpty(), transitions.toString());
+    }
+}
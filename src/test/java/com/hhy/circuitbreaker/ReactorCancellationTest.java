@@ -0,0 +1,101 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReactorCancellationTest {
+
+    public static class Downstream {
+        volatile boolean hang = true;
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public Mono<String> mono() {
+            return hang ? Mono.never() : Mono.just("ok");
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public Flux<Long> flux() {
+            return Flux.interval(Duration.ofMillis(1));
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public Mono<String> failing() {
+            return Mono.error(new IllegalStateException("down"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resubscriptionIsANewGuardedCall() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Downstream downstream = new Downstream();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(downstream, "failing");
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, downstream, null);
+        support.halfOpen(descriptor);
+
+        final Mono<String> mono = (Mono<String>) BreakerTestSupport.call(interceptor, descriptor);
+        assertThrows(IllegalStateException.class, () -> mono.block(Duration.ofSeconds(5)));
+        assertEquals(CircuitState.OPEN, descriptor.getState().get());
+        // 试探失败后重新订阅同一个 Mono，不能再借用上一次的试探许可，直接被熔断
+        assertThrows(CircuitBreakerOpenException.class, () -> mono.block(Duration.ofSeconds(5)));
+        assertEquals(0, descriptor.getMethodWrapper().getRequestRate().getFailCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unsubscribedPublisherHoldsNoPermit() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Downstream downstream = new Downstream();
+        downstream.hang = false;
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(downstream, "mono");
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, downstream, null);
+        support.halfOpen(descriptor);
+
+        BreakerTestSupport.call(interceptor, descriptor);
+        assertEquals(1, descriptor.getState().getTrialPermits());
+        assertEquals("ok", ((Mono<String>) BreakerTestSupport.call(interceptor, descriptor)).block(Duration.ofSeconds(5)));
+        assertEquals(CircuitState.CLOSED, descriptor.getState().get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void disposedTrialSubscriptionReturnsItsPermit() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Downstream downstream = new Downstream();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(downstream, "mono");
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, downstream, null);
+        support.halfOpen(descriptor);
+
+        final Disposable subscription = ((Mono<String>) BreakerTestSupport.call(interceptor, descriptor)).subscribe();
+        assertEquals(0, descriptor.getState().getTrialPermits());
+        subscription.dispose();
+        assertEquals(1, descriptor.getState().getTrialPermits());
+
+        downstream.hang = false;
+        assertEquals("ok", ((Mono<String>) BreakerTestSupport.call(interceptor, descriptor)).block(Duration.ofSeconds(5)));
+        assertEquals(CircuitState.CLOSED, descriptor.getState().get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void trialLimitedByTakeReturnsItsPermit() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Downstream downstream = new Downstream();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(downstream, "flux");
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, downstream, null);
+        support.halfOpen(descriptor);
+
+        final Long first = ((Flux<Long>) BreakerTestSupport.call(interceptor, descriptor)).take(1).blockFirst(Duration.ofSeconds(5));
+        assertEquals(0L, first);
+        assertEquals(CircuitState.HALF_OPEN, descriptor.getState().get());
+        assertEquals(1, descriptor.getState().getTrialPermits());
+    }
+}
@@ -0,0 +1,99 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.metrics.IBreakerMetrics;
+import com.hhy.circuitbreaker.store.BreakerStateEvent;
+import com.hhy.circuitbreaker.store.IBreakerStateStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RemoteOpenEventTest {
+
+    public static class Downstream {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String call() {
+            return "ok";
+        }
+    }
+
+    private static final class CapturingStore implements IBreakerStateStore {
+        final List<BreakerStateEvent> published = new CopyOnWriteArrayList<>();
+        Consumer<BreakerStateEvent> listener;
+
+        @Override
+        public void publish(BreakerStateEvent event) {
+            published.add(event);
+        }
+
+        @Override
+        public void subscribe(Consumer<BreakerStateEvent> listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private final BreakerTestSupport support = new BreakerTestSupport(1);
+    private final CapturingStore store = new CapturingStore();
+    private HHYCircuitBreakerController controller;
+    private CircuitBreakerMethodDescriptor descriptor;
+    private MethodWrapper methodWrapper;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        controller = new HHYCircuitBreakerController(support.properties, support.scheduler, IBreakerMetrics.NOOP, store);
+        final Downstream downstream = new Downstream();
+        descriptor = CircuitBreakerMethodDescriptor.of(downstream, Downstream.class.getMethod("call"), controller);
+        methodWrapper = descriptor.getMethodWrapper();
+    }
+
+    @Test
+    void publishedOpenCarriesTheRemainingWaitInsteadOfAClock() {
+        // 第 2 次重试的等待期为 1000 * 2^2 ms
+        methodWrapper.setRetriedCount(2);
+        controller.trigger(methodWrapper);
+        assertEquals(1, store.published.size());
+        assertEquals(CircuitState.OPEN, store.published.get(0).getState());
+        assertEquals(4000, store.published.get(0).getOpenMillis());
+    }
+
+    @Test
+    void remoteOpenUsesThePublishersRemainingWait() {
+        // 本实例尚未重试过，但发布者还剩 3 秒，按发布者的时长等待
+        final long before = System.currentTimeMillis();
+        store.listener.accept(new BreakerStateEvent(methodWrapper.getKey(), CircuitState.OPEN, 3000));
+        assertEquals(CircuitState.OPEN, descriptor.getState().get());
+        final long wait = methodWrapper.getExpire() - before;
+        assertTrue(wait >= 3000 && wait < 4000, "wait=" + wait);
+        assertEquals(0, methodWrapper.getRetriedCount());
+        // 同步的熔断不再向外发布
+        assertTrue(store.published.isEmpty());
+    }
+
+    @Test
+    void remoteOpenWithoutRemainingWaitIsIgnored() {
+        store.listener.accept(new BreakerStateEvent(methodWrapper.getKey(), CircuitState.OPEN, 0));
+        assertEquals(CircuitState.CLOSED, descriptor.getState().get());
+    }
+
+    @Test
+    void remoteOpenDoesNotPreemptALocalTrialRound() {
+        controller.trigger(methodWrapper);
+        support.scheduler.runPending();
+        final CircuitBreakerState state = descriptor.getState();
+        assertEquals(CircuitState.HALF_OPEN, state.get());
+        final int round = state.tryAcquireTrialPermit();
+
+        store.listener.accept(new BreakerStateEvent(methodWrapper.getKey(), CircuitState.OPEN, 3000));
+        assertEquals(CircuitState.HALF_OPEN, state.get());
+        assertTrue(state.isHalfOpenRound(round));
+    }
+}
@@ -0,0 +1,81 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResultCacheFallbackTest {
+
+    public static class Catalog {
+        final AtomicInteger invocations = new AtomicInteger();
+        volatile boolean broken;
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallback", cacheResults = true)
+        public String lookup(String id) {
+            invocations.incrementAndGet();
+            if (broken) {
+                throw new IllegalStateException("down");
+            }
+            return id + "-v" + invocations.get();
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "fallbackAsync", cacheResults = true)
+        public CompletableFuture<String> lookupAsync(String id) {
+            return CompletableFuture.completedFuture(id + "-async");
+        }
+
+        public String fallback(String id) {
+            return "fallback-" + id;
+        }
+
+        public String fallbackAsync(String id) {
+            return "fallback-" + id;
+        }
+    }
+
+    @Test
+    void openCircuitServesTheLastGoodValueForTheSameArguments() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        support.properties.setMinimumNumberOfCalls(4);
+        final Catalog catalog = new Catalog();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(catalog, "lookup", String.class);
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, catalog, null);
+
+        assertEquals("a-v1", BreakerTestSupport.call(interceptor, descriptor, "a"));
+        assertEquals("b-v2", BreakerTestSupport.call(interceptor, descriptor, "b"));
+        assertEquals("a-v3", BreakerTestSupport.call(interceptor, descriptor, "a"));
+
+        // 失败的调用不覆盖缓存，降级时返回相同参数最近一次成功的结果
+        catalog.broken = true;
+        for (int i = 0; i < 2; i++) {
+            assertEquals("a-v3", BreakerTestSupport.call(interceptor, descriptor, "a"));
+            assertEquals("b-v2", BreakerTestSupport.call(interceptor, descriptor, "b"));
+        }
+        // 4/7 超过阈值
+        assertEquals(CircuitState.OPEN, descriptor.getState().get());
+
+        // 熔断期间不调用原方法，有缓存的参数返回缓存，没有缓存的参数走降级方法
+        final int invocations = catalog.invocations.get();
+        assertEquals("a-v3", BreakerTestSupport.call(interceptor, descriptor, "a"));
+        assertEquals("fallback-c", BreakerTestSupport.call(interceptor, descriptor, "c"));
+        assertEquals(invocations, catalog.invocations.get());
+    }
+
+    @Test
+    void asyncResultsAreCachedAndServedAsCompletedFutures() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Catalog catalog = new Catalog();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(catalog, "lookupAsync", String.class);
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, catalog, null);
+
+        assertEquals("a-async", ((CompletableFuture<?>) BreakerTestSupport.call(interceptor, descriptor, "a")).get());
+        descriptor.getState().compareAndSet(CircuitState.CLOSED, CircuitState.FORCED_OPEN);
+
+        assertEquals("a-async", ((CompletableFuture<?>) BreakerTestSupport.call(interceptor, descriptor, "a")).get());
+        assertEquals("fallback-b", ((CompletableFuture<?>) BreakerTestSupport.call(interceptor, descriptor, "b")).get());
+    }
+}
@@ -0,0 +1,75 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.proxy.HHYCircuitBreakerMethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SlowCallTripTest {
+
+    public static class Downstream {
+        /**
+         * 失败率阈值为 1.0，只有慢调用比例能触发熔断
+         */
+        @HHYCircuitBreaker(circuitBreakerThreshold = 1.0, minimumNumberOfCalls = 4, callback = "fallback",
+                slowCallDurationThreshold = 30, slowCallRateThreshold = 0.5)
+        public String call(long sleepMillis) throws InterruptedException {
+            TimeUnit.MILLISECONDS.sleep(sleepMillis);
+            return "ok";
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String untimed() {
+            return "ok";
+        }
+
+        public String fallback(long sleepMillis) {
+            return "fallback";
+        }
+    }
+
+    @Test
+    void successfulButSlowCallsTripOnceTheRateExceedsTheThreshold() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Downstream downstream = new Downstream();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(downstream, "call", long.class);
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, downstream, null);
+
+        assertEquals("ok", BreakerTestSupport.call(interceptor, descriptor, 0L));
+        assertEquals("ok", BreakerTestSupport.call(interceptor, descriptor, 0L));
+        assertEquals("ok", BreakerTestSupport.call(interceptor, descriptor, 50L));
+        assertEquals("ok", BreakerTestSupport.call(interceptor, descriptor, 50L));
+        // 2/4 恰好等于阈值，不熔断
+        assertEquals(CircuitState.CLOSED, descriptor.getState().get());
+        assertEquals(2, descriptor.getMethodWrapper().getRequestRate().getSlowCount());
+        assertEquals(0, descriptor.getMethodWrapper().getRequestRate().getFailCount());
+
+        // 慢调用本身仍返回原结果，3/5 超过阈值后熔断
+        assertEquals("ok", BreakerTestSupport.call(interceptor, descriptor, 50L));
+        assertEquals(CircuitState.OPEN, descriptor.getState().get());
+        assertEquals("fallback", BreakerTestSupport.call(interceptor, descriptor, 0L));
+    }
+
+    @Test
+    void slowTrialReopensTheBreaker() throws Throwable {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final Downstream downstream = new Downstream();
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(downstream, "call", long.class);
+        final HHYCircuitBreakerMethodInterceptor interceptor = support.interceptor(descriptor, downstream, null);
+        support.halfOpen(descriptor);
+
+        assertEquals("ok", BreakerTestSupport.call(interceptor, descriptor, 50L));
+        assertEquals(CircuitState.OPEN, descriptor.getState().get());
+        assertEquals(1, descriptor.getMethodWrapper().getRetriedCount());
+    }
+
+    @Test
+    void slowCallsAreNotTrackedWithoutADurationThreshold() throws NoSuchMethodException {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final CircuitBreakerMethodDescriptor descriptor = support.describe(new Downstream(), "untimed");
+        assertFalse(descriptor.isSlowCall(TimeUnit.MINUTES.toNanos(10)));
+    }
+}
@@ -0,0 +1,66 @@
+package com.hhy.circuitbreaker;
+
+import com.hhy.circuitbreaker.metrics.IBreakerMetrics;
+import com.hhy.circuitbreaker.snapshot.MappedBreakerSnapshot;
+import com.hhy.circuitbreaker.store.IBreakerStateStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotRescheduleTest {
+
+    @Test
+    void failedSnapshotWriteIsRescheduled(@TempDir File dir) {
+        final AtomicInteger writes = new AtomicInteger();
+        final MappedBreakerSnapshot snapshot = new MappedBreakerSnapshot(new File(dir, "breaker.snapshot"), 16, TimeUnit.MINUTES.toMillis(1)) {
+            @Override
+            public synchronized void write(MethodWrapper[] registry) {
+                if (writes.incrementAndGet() == 1) {
+                    throw new IllegalStateException("磁盘已满");
+                }
+                super.write(registry);
+            }
+        };
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        support.properties.setSnapshotInterval(1000);
+        new HHYCircuitBreakerController(support.properties, support.scheduler, IBreakerMetrics.NOOP, IBreakerStateStore.NOOP, snapshot);
+
+        support.scheduler.runPending();
+        support.scheduler.runPending();
+        assertEquals(2, writes.get());
+    }
+
+    @Test
+    void destroyWritesTheLastSnapshotBeforeStoppingTheScheduler(@TempDir File dir) {
+        final BreakerTestSupport support = new BreakerTestSupport(1);
+        final AtomicInteger writes = new AtomicInteger();
+        final MappedBreakerSnapshot snapshot = new MappedBreakerSnapshot(new File(dir, "breaker.snapshot"), 16, TimeUnit.MINUTES.toMillis(1)) {
+            @Override
+            public synchronized void write(MethodWrapper[] registry) {
+                // 最后一次快照必须在定时器停止之前写入
+                assertFalse(support.scheduler.isStopped());
+                writes.incrementAndGet();
+                super.write(registry);
+            }
+        };
+        support.properties.setSnapshotInterval(1000);
+        final HHYCircuitBreakerController controller = new HHYCircuitBreakerController(support.properties, support.scheduler,
+                IBreakerMetrics.NOOP, IBreakerStateStore.NOOP, snapshot);
+
+        controller.destroy();
+        assertEquals(1, writes.get());
+        assertTrue(support.scheduler.isStopped());
+
+        // 关闭前已安排的快照任务即使仍被执行，也不再写入或重新安排，不会因定时器已停止而抛出异常
+        support.scheduler.runPending();
+        assertEquals(1, writes.get());
+        assertEquals(0, support.scheduler.pendingCount());
+    }
+}
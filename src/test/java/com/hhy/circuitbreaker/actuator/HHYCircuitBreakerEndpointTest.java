@@ -0,0 +1,78 @@
+package com.hhy.circuitbreaker.actuator;
+
+import com.hhy.circuitbreaker.BreakerStatus;
+import com.hhy.circuitbreaker.CircuitBreakerMethodDescriptor;
+import com.hhy.circuitbreaker.CircuitState;
+import com.hhy.circuitbreaker.HHYCircuitBreaker;
+import com.hhy.circuitbreaker.HHYCircuitBreakerController;
+import com.hhy.circuitbreaker.config.HHYCircuitBreakerProperties;
+import com.hhy.circuitbreaker.scheduler.IBreakerScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HHYCircuitBreakerEndpointTest {
+
+    public static class Orders {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String find(long id) {
+            return "order";
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String cancel(long id) {
+            return "cancelled";
+        }
+    }
+
+    private HHYCircuitBreakerEndpoint endpoint;
+    private String findKey;
+    private String cancelKey;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        final HHYCircuitBreakerProperties properties = new HHYCircuitBreakerProperties();
+        properties.setRetryInterval(1000);
+        properties.setBackoffMultiplier(2.0);
+        final HHYCircuitBreakerController controller = new HHYCircuitBreakerController(properties, (IBreakerScheduler) null);
+        final Orders orders = new Orders();
+        findKey = CircuitBreakerMethodDescriptor.of(orders, Orders.class.getMethod("find", long.class), controller)
+                .getMethodWrapper().getKey();
+        cancelKey = CircuitBreakerMethodDescriptor.of(orders, Orders.class.getMethod("cancel", long.class), controller)
+                .getMethodWrapper().getKey();
+        endpoint = new HHYCircuitBreakerEndpoint(controller);
+    }
+
+    @Test
+    void listsEveryBreakerAndLooksOneUpByKey() {
+        final List<BreakerStatus> breakers = endpoint.breakers();
+        assertEquals(2, breakers.size());
+        assertEquals(Orders.class.getName() + "#find(long)", findKey);
+        assertEquals(findKey, endpoint.breaker(findKey).getKey());
+        assertNull(endpoint.breaker(Orders.class.getName() + "#find()"));
+    }
+
+    @Test
+    void actionsSwitchOnlyTheSelectedBreaker() {
+        assertEquals(CircuitState.FORCED_OPEN, endpoint.control(findKey, "force-open").getState());
+        assertEquals(CircuitState.CLOSED, endpoint.breaker(cancelKey).getState());
+
+        assertEquals(CircuitState.DISABLED, endpoint.control(cancelKey, "disable").getState());
+        assertEquals(CircuitState.FORCED_OPEN, endpoint.breaker(findKey).getState());
+
+        assertEquals(CircuitState.CLOSED, endpoint.control(findKey, "force-close").getState());
+        assertEquals(CircuitState.CLOSED, endpoint.control(cancelKey, "reset").getState());
+    }
+
+    @Test
+    void unknownKeysAndActionsAreRejected() {
+        assertNull(endpoint.control("missing", "force-open"));
+        assertThrows(IllegalArgumentException.class, () -> endpoint.control(findKey, "open"));
+        assertEquals(CircuitState.CLOSED, endpoint.breaker(findKey).getState());
+    }
+}
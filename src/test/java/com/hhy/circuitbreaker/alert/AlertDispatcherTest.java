@@ -0,0 +1,151 @@
+package com.hhy.circuitbreaker.alert;
+
+import com.hhy.circuitbreaker.CircuitBreakerMethodDescriptor;
+import com.hhy.circuitbreaker.HHYCircuitBreaker;
+import com.hhy.circuitbreaker.HHYCircuitBreakerController;
+import com.hhy.circuitbreaker.MethodWrapper;
+import com.hhy.circuitbreaker.config.HHYCircuitBreakerProperties;
+import com.hhy.circuitbreaker.scheduler.IBreakerScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlertDispatcherTest {
+
+    public static class Payment {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String pay() {
+            return "paid";
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String refund() {
+            return "refunded";
+        }
+    }
+
+    /**
+     * 记录每个批次，供测试线程等待
+     */
+    private static final class RecordingSink implements IAlertService {
+        private final BlockingQueue<List<AlertEvent>> batches = new LinkedBlockingQueue<>();
+
+        @Override
+        public void alert(MethodWrapper methodWrapper) {
+            throw new AssertionError("应按批次调用");
+        }
+
+        @Override
+        public void alert(List<AlertEvent> events) {
+            batches.add(events);
+        }
+
+        List<AlertEvent> next(long timeoutMillis) throws InterruptedException {
+            return batches.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private final RecordingSink sink = new RecordingSink();
+    private MethodWrapper pay;
+    private MethodWrapper refund;
+    private AlertDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        final HHYCircuitBreakerProperties properties = new HHYCircuitBreakerProperties();
+        properties.setRetryInterval(1000);
+        properties.setBackoffMultiplier(2.0);
+        final HHYCircuitBreakerController controller = new HHYCircuitBreakerController(properties, (IBreakerScheduler) null);
+        final Payment payment = new Payment();
+        pay = CircuitBreakerMethodDescriptor.of(payment, Payment.class.getMethod("pay"), controller).getMethodWrapper();
+        refund = CircuitBreakerMethodDescriptor.of(payment, Payment.class.getMethod("refund"), controller).getMethodWrapper();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void alertsWithinABatchAreCoalescedPerMethod() throws InterruptedException {
+        dispatcher = new AlertDispatcher(() -> Collections.singletonList(sink), 16, 200, 0, TimeUnit.MILLISECONDS);
+        assertTrue(dispatcher.submit(pay));
+        assertTrue(dispatcher.submit(refund));
+        assertTrue(dispatcher.submit(pay));
+        assertTrue(dispatcher.submit(pay));
+
+        final List<AlertEvent> batch = sink.next(5000);
+        assertNotNull(batch);
+        assertEquals(2, batch.size());
+        assertEquals(pay.getKey(), batch.get(0).getKey());
+        assertEquals(3, batch.get(0).getOccurrences());
+        assertEquals(refund.getKey(), batch.get(1).getKey());
+        assertEquals(1, batch.get(1).getOccurrences());
+        assertNull(sink.next(400));
+    }
+
+    @Test
+    void alertsWithinTheMinimumIntervalAreHeldAndCounted() throws InterruptedException {
+        dispatcher = new AlertDispatcher(() -> Collections.singletonList(sink), 16, 20, 1000, TimeUnit.MILLISECONDS);
+        dispatcher.submit(pay);
+        assertEquals(1, sink.next(5000).get(0).getOccurrences());
+        final long sentAt = System.nanoTime();
+
+        dispatcher.submit(pay);
+        dispatcher.submit(pay);
+        // 其他方法不受 pay 的限流影响
+        dispatcher.submit(refund);
+        final List<AlertEvent> other = sink.next(5000);
+        assertEquals(1, other.size());
+        assertEquals(refund.getKey(), other.get(0).getKey());
+
+        final List<AlertEvent> held = sink.next(5000);
+        assertTrue(System.nanoTime() - sentAt >= TimeUnit.MILLISECONDS.toNanos(900));
+        assertEquals(1, held.size());
+        assertEquals(pay.getKey(), held.get(0).getKey());
+        assertEquals(2, held.get(0).getOccurrences());
+    }
+
+    @Test
+    void fullQueueDropsAndShutdownFlushesTheRest() throws InterruptedException {
+        dispatcher = new AlertDispatcher(() -> Collections.singletonList(sink), 2, 10, 0, TimeUnit.SECONDS);
+        assertTrue(dispatcher.submit(pay));
+        assertTrue(dispatcher.submit(pay));
+        assertFalse(dispatcher.submit(refund));
+        assertEquals(1, dispatcher.getDroppedCount());
+
+        dispatcher.shutdown();
+        final List<AlertEvent> flushed = sink.next(0);
+        assertNotNull(flushed);
+        assertEquals(1, flushed.size());
+        assertEquals(2, flushed.get(0).getOccurrences());
+        assertFalse(dispatcher.submit(pay));
+    }
+
+    @Test
+    void failingSinkDoesNotStopTheOthers() throws InterruptedException {
+        final IAlertService failing = methodWrapper -> {
+            throw new IllegalStateException("webhook down");
+        };
+        dispatcher = new AlertDispatcher(() -> Arrays.asList(failing, sink), 16, 20, 0, TimeUnit.MILLISECONDS);
+        dispatcher.submit(pay);
+        assertNotNull(sink.next(5000));
+        dispatcher.submit(refund);
+        assertEquals(refund.getKey(), sink.next(5000).get(0).getKey());
+    }
+}
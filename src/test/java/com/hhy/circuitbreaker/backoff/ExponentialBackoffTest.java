@@ -0,0 +1,52 @@
+package com.hhy.circuitbreaker.backoff;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExponentialBackoffTest {
+
+    @Test
+    void delayGrowsByTheMultiplierUntilTheCap() {
+        final ExponentialBackoff backoff = new ExponentialBackoff(1000, 2.0, 10000, 0);
+        assertEquals(1000, backoff.nextDelay(0));
+        assertEquals(2000, backoff.nextDelay(1));
+        assertEquals(4000, backoff.nextDelay(2));
+        assertEquals(8000, backoff.nextDelay(3));
+        assertEquals(10000, backoff.nextDelay(4));
+        // 次数很大时 pow 溢出为无穷大，仍然取上限
+        assertEquals(10000, backoff.nextDelay(Integer.MAX_VALUE));
+        assertEquals(1000, backoff.nextDelay(-1));
+    }
+
+    @Test
+    void multiplierOfOneIsAFixedInterval() {
+        final ExponentialBackoff backoff = new ExponentialBackoff(500, 1.0, 0, 0);
+        for (int attempt = 0; attempt < 5; attempt++) {
+            assertEquals(500, backoff.nextDelay(attempt));
+        }
+    }
+
+    @Test
+    void jitterOnlyShortensTheDelay() {
+        final ExponentialBackoff backoff = new ExponentialBackoff(1000, 2.0, 4000, 0.25);
+        for (int i = 0; i < 1000; i++) {
+            final long delay = backoff.nextDelay(5);
+            assertTrue(delay >= 3000 && delay <= 4000, "delay=" + delay);
+        }
+        final ExponentialBackoff full = new ExponentialBackoff(1, 1.0, 1, 1.0);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1, full.nextDelay(0));
+        }
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ExponentialBackoff(0, 2.0, 1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ExponentialBackoff(1000, 0.5, 1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ExponentialBackoff(1000, 2.0, 1000, -0.1));
+        assertThrows(IllegalArgumentException.class, () -> new ExponentialBackoff(1000, 2.0, 1000, 1.5));
+    }
+}
@@ -0,0 +1,36 @@
+package com.hhy.circuitbreaker.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LruResultCacheTest {
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedFirst() {
+        final LruResultCache cache = new LruResultCache(2, TimeUnit.MINUTES.toNanos(1), false);
+        cache.put(new Object[]{"a"}, "A");
+        cache.put(new Object[]{"b"}, "B");
+        // 访问 a 之后，b 成为最久未使用的条目
+        assertEquals("A", cache.get(new Object[]{"a"}));
+        cache.put(new Object[]{"c"}, "C");
+
+        assertEquals("A", cache.get(new Object[]{"a"}));
+        assertNull(cache.get(new Object[]{"b"}));
+        assertEquals("C", cache.get(new Object[]{"c"}));
+    }
+
+    @Test
+    void expiredEntriesAreNotServed() throws InterruptedException {
+        final LruResultCache cache = new LruResultCache(10, TimeUnit.MILLISECONDS.toNanos(20), false);
+        cache.put(new Object[]{"a", 1}, "A");
+        assertEquals("A", cache.get(new Object[]{"a", 1}));
+        assertNull(cache.get(new Object[]{"a", 2}));
+
+        TimeUnit.MILLISECONDS.sleep(40);
+        assertNull(cache.get(new Object[]{"a", 1}));
+    }
+}
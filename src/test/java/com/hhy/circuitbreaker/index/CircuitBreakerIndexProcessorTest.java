@@ -0,0 +1,62 @@
+package com.hhy.circuitbreaker.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CircuitBreakerIndexProcessorTest {
+
+    private static final String GUARDED = "package demo; public class Guarded {"
+            + " @com.hhy.circuitbreaker.HHYCircuitBreaker(circuitBreakerThreshold = 0.5) public String call() { return \"ok\"; } }";
+
+    private static final String KEPT = "package demo; public class Kept {"
+            + " @com.hhy.circuitbreaker.HHYCircuitBreaker(circuitBreakerThreshold = 0.5) public String call() { return \"ok\"; } }";
+
+    private static final String UNGUARDED = "package demo; public class Guarded { public String call() { return \"ok\"; } }";
+
+    @Test
+    void incrementalBuildsDropClassesThatLostTheirBreakers(@TempDir Path dir) throws IOException {
+        final Path out = Files.createDirectories(dir.resolve("classes"));
+        compile(dir, out, "Guarded", GUARDED, "Kept", KEPT);
+        assertEquals(Arrays.asList("demo.Guarded", "demo.Kept"), readIndex(out));
+
+        // 只重新编译去掉了注解的类，未参与编译的类保留
+        compile(dir, out, "Guarded", UNGUARDED);
+        assertEquals(Collections.singletonList("demo.Kept"), readIndex(out));
+
+        // 最后一个熔断类被删除后索引被清空，而不是保留上一次的内容
+        Files.delete(out.resolve("demo/Kept.class"));
+        compile(dir, out, "Guarded", UNGUARDED);
+        assertEquals(Collections.emptyList(), readIndex(out));
+    }
+
+    private static void compile(Path dir, Path out, String... namesAndSources) throws IOException {
+        final Path src = Files.createDirectories(dir.resolve("src").resolve("demo"));
+        final List<String> args = new ArrayList<>(Arrays.asList("-processor", CircuitBreakerIndexProcessor.class.getName(),
+                "-classpath", out + File.pathSeparator + System.getProperty("java.class.path"), "-d", out.toString()));
+        for (int i = 0; i < namesAndSources.length; i += 2) {
+            final Path file = src.resolve(namesAndSources[i] + ".java");
+            Files.write(file, namesAndSources[i + 1].getBytes(StandardCharsets.UTF_8));
+            args.add(file.toString());
+        }
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, args.toArray(new String[0])));
+    }
+
+    private static List<String> readIndex(Path out) throws IOException {
+        return Files.readAllLines(out.resolve(CircuitBreakerMethodIndex.INDEX_LOCATION), StandardCharsets.UTF_8);
+    }
+}
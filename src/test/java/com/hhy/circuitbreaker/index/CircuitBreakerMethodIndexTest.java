@@ -0,0 +1,44 @@
+package com.hhy.circuitbreaker.index;
+
+import com.hhy.circuitbreaker.HHYCircuitBreaker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerMethodIndexTest {
+
+    public static class Unindexed {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String call() {
+            return "ok";
+        }
+    }
+
+    public static class Plain {
+        public String call() {
+            return "ok";
+        }
+    }
+
+    @Test
+    void classesOutsideIndexedRootsAreStillScanned(@TempDir Path dir) throws Exception {
+        final Path index = dir.resolve(CircuitBreakerMethodIndex.INDEX_LOCATION);
+        Files.createDirectories(index.getParent());
+        Files.write(index, Collections.singletonList("com.example.Other"), StandardCharsets.UTF_8);
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, null)) {
+            final CircuitBreakerMethodIndex methodIndex = new CircuitBreakerMethodIndex(classLoader, true);
+
+            assertEquals(1, methodIndex.getAnnotatedMethods(Unindexed.class).size());
+            assertTrue(methodIndex.getAnnotatedMethods(Plain.class).isEmpty());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.hhy.circuitbreaker.metrics;
+
+import com.hhy.circuitbreaker.CircuitBreakerMethodDescriptor;
+import com.hhy.circuitbreaker.CircuitState;
+import com.hhy.circuitbreaker.HHYCircuitBreaker;
+import com.hhy.circuitbreaker.HHYCircuitBreakerController;
+import com.hhy.circuitbreaker.config.HHYCircuitBreakerProperties;
+import com.hhy.circuitbreaker.scheduler.IBreakerScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class MicrometerBreakerMetricsTest {
+
+    public static class Base {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5)
+        public String call() {
+            return "ok";
+        }
+    }
+
+    public static class First extends Base {
+    }
+
+    public static class Second extends Base {
+    }
+
+    @Test
+    void inheritedMethodsAreTaggedWithTheBeanClass() throws Exception {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final MicrometerBreakerMetrics metrics = new MicrometerBreakerMetrics(registry);
+        final HHYCircuitBreakerProperties properties = new HHYCircuitBreakerProperties();
+        properties.setRetryInterval(1000);
+        properties.setBackoffMultiplier(2.0);
+        final HHYCircuitBreakerController controller = new HHYCircuitBreakerController(properties, (IBreakerScheduler) null);
+        for (Object bean : new Object[]{new First(), new Second()}) {
+            final CircuitBreakerMethodDescriptor descriptor = CircuitBreakerMethodDescriptor.of(bean, Base.class.getMethod("call"), controller);
+            metrics.forMethod(descriptor.getMethodWrapper());
+        }
+
+        assertNotNull(registry.find(MicrometerBreakerMetrics.CALLS).tag("class", First.class.getName()).counter());
+        assertNotNull(registry.find(MicrometerBreakerMetrics.CALLS).tag("class", Second.class.getName()).counter());
+    }
+
+    @Test
+    void beansOfTheSameClassGetTheirOwnStateGauge() throws Exception {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final HHYCircuitBreakerProperties properties = new HHYCircuitBreakerProperties();
+        properties.setRetryInterval(1000);
+        properties.setBackoffMultiplier(2.0);
+        final HHYCircuitBreakerController controller = new HHYCircuitBreakerController(properties, (IBreakerScheduler) null,
+                new MicrometerBreakerMetrics(registry));
+        final Method call = First.class.getMethod("call");
+        final CircuitBreakerMethodDescriptor primary = CircuitBreakerMethodDescriptor.of(new First(), "primaryFirst", call,
+                call.getAnnotation(HHYCircuitBreaker.class), controller, null);
+        CircuitBreakerMethodDescriptor.of(new First(), "backupFirst", call, call.getAnnotation(HHYCircuitBreaker.class), controller, null);
+
+        primary.getState().compareAndSet(CircuitState.CLOSED, CircuitState.FORCED_OPEN);
+        assertEquals(CircuitState.FORCED_OPEN.ordinal(),
+                registry.get(MicrometerBreakerMetrics.STATE).tag("bean", "primaryFirst").gauge().value());
+        assertEquals(CircuitState.CLOSED.ordinal(),
+                registry.get(MicrometerBreakerMetrics.STATE).tag("bean", "backupFirst").gauge().value());
+    }
+}
@@ -0,0 +1,57 @@
+package com.hhy.circuitbreaker.partition;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.SpelEvaluationException;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SpelPartitionKeyExtractorTest {
+
+    public static class Shard {
+        private final int id;
+
+        Shard(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+
+    public String query(String tenantId, Shard shard) {
+        return tenantId;
+    }
+
+    @Test
+    void parametersResolveByPositionAndName() throws NoSuchMethodException {
+        final Method method = getClass().getMethod("query", String.class, Shard.class);
+        final Object[] args = {"t1", new Shard(7)};
+
+        assertEquals("t1", new SpelPartitionKeyExtractor("#p0").extract(method, args));
+        assertEquals(7, new SpelPartitionKeyExtractor("#a1.id").extract(method, args));
+        final SpelPartitionKeyExtractor byName = new SpelPartitionKeyExtractor("#tenantId + ':' + #shard.id");
+        assertEquals("t1:7", byName.extract(method, args));
+        assertEquals("t2:8", byName.extract(method, new Object[]{"t2", new Shard(8)}));
+    }
+
+    @Test
+    void expressionsCanOnlyReadTheArguments() throws NoSuchMethodException {
+        final Method method = getClass().getMethod("query", String.class, Shard.class);
+        final Object[] args = {"t1", new Shard(7)};
+
+        assertEquals("T1", new SpelPartitionKeyExtractor("#p0.toUpperCase()").extract(method, args));
+        assertNull(new SpelPartitionKeyExtractor("#missing").extract(method, args));
+        assertThrows(SpelEvaluationException.class,
+                () -> new SpelPartitionKeyExtractor("T(java.lang.System).currentTimeMillis()").extract(method, args));
+        assertThrows(SpelEvaluationException.class,
+                () -> new SpelPartitionKeyExtractor("new java.lang.StringBuilder(#p0)").extract(method, args));
+        assertThrows(SpelEvaluationException.class,
+                () -> new SpelPartitionKeyExtractor("#p0 = 'other'").extract(method, args));
+        assertEquals("t1", args[0]);
+    }
+}
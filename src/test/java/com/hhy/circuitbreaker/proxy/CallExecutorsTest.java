@@ -0,0 +1,42 @@
+package com.hhy.circuitbreaker.proxy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallExecutorsTest {
+
+    @Test
+    void zeroQueueCapacityRejectsWhenAllThreadsAreBusy() throws Exception {
+        final ExecutorService executor = CallExecutors.newBoundedExecutor(1, 0, "test-");
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            final Future<String> first = executor.submit(() -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return "ok";
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> "queued"));
+            release.countDown();
+            assertEquals("ok", first.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void negativeQueueCapacityIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CallExecutors.newBoundedExecutor(1, -1, "test-"));
+        assertThrows(IllegalArgumentException.class, () -> CallExecutors.newBoundedExecutor(0, 1, "test-"));
+    }
+}
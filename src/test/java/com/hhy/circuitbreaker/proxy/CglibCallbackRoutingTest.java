@@ -0,0 +1,80 @@
+package com.hhy.circuitbreaker.proxy;
+
+import com.hhy.circuitbreaker.CircuitBreakerMethodDescriptor;
+import com.hhy.circuitbreaker.CircuitState;
+import com.hhy.circuitbreaker.HHYCircuitBreaker;
+import com.hhy.circuitbreaker.HHYCircuitBreakerController;
+import com.hhy.circuitbreaker.config.HHYCircuitBreakerProperties;
+import com.hhy.circuitbreaker.scheduler.IBreakerScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class CglibCallbackRoutingTest {
+
+    public static class Catalog {
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "cached")
+        public String item(String id) {
+            return "item-" + id;
+        }
+
+        @HHYCircuitBreaker(circuitBreakerThreshold = 0.5, callback = "cached")
+        public String price(String id) {
+            return "price-" + id;
+        }
+
+        public String plain(String id) {
+            return "plain-" + id;
+        }
+
+        public String cached(String id) {
+            return "cached-" + id;
+        }
+    }
+
+    @Test
+    void eachAnnotatedMethodRoutesToItsOwnDescriptor() throws Exception {
+        final HHYCircuitBreakerProperties properties = new HHYCircuitBreakerProperties();
+        properties.setRetryInterval(1000);
+        properties.setBackoffMultiplier(2.0);
+        final HHYCircuitBreakerController controller = new HHYCircuitBreakerController(properties, (IBreakerScheduler) null);
+        final Catalog target = new Catalog();
+        final CircuitBreakerMethodDescriptor item = CircuitBreakerMethodDescriptor.of(target, Catalog.class.getMethod("item", String.class), controller);
+        final CircuitBreakerMethodDescriptor price = CircuitBreakerMethodDescriptor.of(target, Catalog.class.getMethod("price", String.class), controller);
+
+        final Catalog proxy = CglibFactory.getProxy(target, Arrays.asList(item, price), controller, null);
+        assertNotSame(Catalog.class, proxy.getClass());
+
+        // 只打开 item 的熔断：price 与未注解的方法照常调用原方法
+        item.getState().compareAndSet(CircuitState.CLOSED, CircuitState.FORCED_OPEN);
+        assertEquals("cached-1", proxy.item("1"));
+        assertEquals("price-1", proxy.price("1"));
+        assertEquals("plain-1", proxy.plain("1"));
+        assertEquals(0, item.getMethodWrapper().getRequestRate().getSuccessCount());
+        assertEquals(1, price.getMethodWrapper().getRequestRate().getSuccessCount());
+    }
+
+    @Test
+    void unannotatedMethodsPassThroughAndEqualRoutesShareAProxyClass() throws Exception {
+        final Map<Method, Integer> routes = new HashMap<>();
+        routes.put(Catalog.class.getMethod("item", String.class), 1);
+        final HHYCircuitBreakerCallbackFilter filter = new HHYCircuitBreakerCallbackFilter(routes);
+
+        assertEquals(1, filter.accept(Catalog.class.getMethod("item", String.class)));
+        assertEquals(HHYCircuitBreakerCallbackFilter.PASS_THROUGH, filter.accept(Catalog.class.getMethod("plain", String.class)));
+        assertEquals(HHYCircuitBreakerCallbackFilter.PASS_THROUGH, filter.accept(Object.class.getMethod("hashCode")));
+
+        // Enhancer 以回调过滤器作为代理类的缓存键
+        assertEquals(filter, new HHYCircuitBreakerCallbackFilter(new HashMap<>(routes)));
+        assertEquals(filter.hashCode(), new HHYCircuitBreakerCallbackFilter(new HashMap<>(routes)).hashCode());
+        assertNotEquals(filter, new HHYCircuitBreakerCallbackFilter(Collections.emptyMap()));
+    }
+}
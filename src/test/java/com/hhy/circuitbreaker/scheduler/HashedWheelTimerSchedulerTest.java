@@ -0,0 +1,36 @@
+package com.hhy.circuitbreaker.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedWheelTimerSchedulerTest {
+
+    @Test
+    void rejectedTaskIsRedeliveredOnALaterTick() throws InterruptedException {
+        final AtomicInteger attempts = new AtomicInteger();
+        final Executor rejectTwice = command -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new RejectedExecutionException("busy");
+            }
+            command.run();
+        };
+        final HashedWheelTimerScheduler scheduler = new HashedWheelTimerScheduler(rejectTwice, 10, TimeUnit.MILLISECONDS, 8);
+        try {
+            final CountDownLatch ran = new CountDownLatch(1);
+            scheduler.schedule(ran::countDown, 10, TimeUnit.MILLISECONDS);
+
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+            assertEquals(3, attempts.get());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}